@@ -11,11 +11,15 @@ import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.constants.ControlLoopConstants;
 import frc.robot.constants.NetworkTableConstants;
+import frc.robot.subsystems.SubsystemABC;
 import frc.robot.subsystems.leds.Leds;
+import frc.robot.utils.LimelightUtils;
 
 public class Robot extends TimedRobot {
   private Command m_autonomousCommand;
+  private Command m_selfTestCommand;
 
   private RobotContainer m_robotContainer;
 
@@ -29,6 +33,8 @@ public class Robot extends TimedRobot {
 
     m_robotContainer.drivetrain.getDaqThread().setThreadPriority(99);
 
+    addPeriodic(m_robotContainer.controlLoop::run, ControlLoopConstants.kPeriod, ControlLoopConstants.kOffset);
+
     // Start logging data log
     DataLogManager.start();
 
@@ -39,16 +45,24 @@ public class Robot extends TimedRobot {
 
   @Override
   public void robotPeriodic() {
+    SubsystemABC.readAllInputs();
+    m_robotContainer.power.update();
     CommandScheduler.getInstance().run();
+    m_robotContainer.currentBudget.update();
+    SubsystemABC.flushAllOutputs();
   }
 
   @Override
   public void disabledInit() {
     m_robotContainer.leds.setLedColor(Leds.LedColors.FOREST);
+    // drop the climber's goal, so enabling again doesn't drive the hooks back to it
+    m_robotContainer.climber.setClimberVoltage(0);
   }
 
   @Override
-  public void disabledPeriodic() {}
+  public void disabledPeriodic() {
+    LimelightUtils.getShotMap().pollReload();
+  }
 
   @Override
   public void disabledExit() {}
@@ -84,6 +98,8 @@ public class Robot extends TimedRobot {
   @Override
   public void testInit() {
     CommandScheduler.getInstance().cancelAll();
+    m_selfTestCommand = m_robotContainer.getSelfTestCommand();
+    m_selfTestCommand.schedule();
   }
 
   @Override
@@ -93,5 +109,7 @@ public class Robot extends TimedRobot {
   }
 
   @Override
-  public void testExit() {}
+  public void testExit() {
+    m_selfTestCommand.cancel();
+  }
 }
@@ -18,6 +18,9 @@
 
 package frc.robot;
 
+import java.io.File;
+import java.io.IOException;
+
 import com.ctre.phoenix6.Utils;
 import com.ctre.phoenix6.mechanisms.swerve.SwerveModule.DriveRequestType;
 import com.pathplanner.lib.auto.NamedCommands;
@@ -25,6 +28,10 @@ import com.ctre.phoenix6.mechanisms.swerve.SwerveRequest;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.networktables.GenericEntry;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
@@ -37,18 +44,24 @@ import edu.wpi.first.wpilibj2.command.RepeatCommand;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import edu.wpi.first.wpilibj2.command.WaitCommand;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.commands.Intake.RotateWristToPosition;
 import frc.robot.commands.Intake.RunIntakeWheels;
 import frc.robot.commands.arm.RotateArmToPosition;
 import frc.robot.commands.arm.RotateArmManual;
 import frc.robot.commands.autons.DriveForwardForTime;
 import frc.robot.commands.climber.ExtendClimber;
+import frc.robot.commands.climber.HomeClimber;
+import frc.robot.commands.climber.MoveClimberToPosition;
 import frc.robot.commands.compound.*;
 import frc.robot.commands.controller.ToggleRumble;
 import frc.robot.commands.leds.SetLEDColor;
+import frc.robot.commands.selftest.StepTest;
+import frc.robot.commands.superstructure.MoveSuperstructure;
 import frc.robot.commands.shooter.StopServos;
 import frc.robot.commands.swerve.AimToAprilTag;
 import frc.robot.commands.shooter.EjectNote;
+import frc.robot.commands.shooter.PrespoolShooter;
 import frc.robot.commands.shooter.RotateShooterToPosition;
 import frc.robot.commands.shooter.RotateShooterBasic;
 import frc.robot.commands.shooter.ShootNoteMotionMagicVelocity;
@@ -64,11 +77,19 @@ import frc.robot.subsystems.sensors.BreakBeamSensorShooter;
 import frc.robot.subsystems.shooter.ShooterServos;
 import frc.robot.subsystems.shooter.ShooterRotation;
 import frc.robot.subsystems.shooter.ShooterWheels;
+import frc.robot.subsystems.shooter.ShotSolver;
 import frc.robot.subsystems.swerve.CommandSwerveDrivetrain;
 import frc.robot.subsystems.swerve.generated.TunerConstants;
+import frc.robot.subsystems.vision_sys.NoteTracker;
 import frc.robot.subsystems.vision_sys.VisionVariables.ExportedVariables;
 import frc.robot.subsystems.vision_sys.camera.BackCamera;
+import frc.robot.subsystems.vision_sys.sim.LimelightSimServer;
 import frc.robot.subsystems.vision_sys.utils.DashBoardManager;
+import frc.robot.utils.LimelightUtils;
+import frc.robot.utils.CurrentBudget;
+import frc.robot.utils.MechanismControlLoop;
+import frc.robot.utils.PowerCoordinator;
+import frc.robot.utils.SelfTestBaselines;
 import frc.robot.utils.Telemetry;
 
 public class RobotContainer {
@@ -90,11 +111,23 @@ public class RobotContainer {
         private final Wrist wrist;
         private final IntakeWheels intakeWheels;
         private final Arm arm;
-        private final Climber climber;
+        public final Climber climber;
         public final Leds leds;
 
+        // arm, shooter pivot and wrist close their loops here, faster than the scheduler
+        public final MechanismControlLoop controlLoop = new MechanismControlLoop();
+
+        // sheds loads in PowerConstants.kShedOrder when the battery sags
+        public final PowerCoordinator power = new PowerCoordinator();
+        // shares out PowerConstants.Budget.kTotal amps to whatever is busy
+        public final CurrentBudget currentBudget = new CurrentBudget();
+        private double driveAccelerationLimit = Double.POSITIVE_INFINITY; // m/s^2, lowered while shed
+        private Translation2d lastDriveVelocity = new Translation2d();
+
         // private final FrontCamera frontCamera;
         private final BackCamera backCamera;
+        private final NoteTracker noteTracker;
+        private final ShotSolver shotSolver;
         private final DashBoardManager visionManager;
         private final BreakBeamSensorShooter breakBeamSensorShooter;
         private final BreakBeamSensorIntake breakBeamSensorIntake;
@@ -104,23 +137,57 @@ public class RobotContainer {
 
         SendableChooser<Command> autonChooser = new SendableChooser<>();
 
+        private final SelfTestBaselines selfTestBaselines = new SelfTestBaselines(SelfTestConstants.kBaselineFile);
+
         ShuffleboardTab commandsTab = Shuffleboard.getTab("commands");
 
         public RobotContainer() {
                 arm = new Arm();
                 shooterWheels = new ShooterWheels();
-                shooterRotation = new ShooterRotation(arm::getArmAngle);
+                shooterRotation = new ShooterRotation(arm::getSensedAngle);
                 climber = new Climber();
                 wrist = new Wrist();
                 intakeWheels = new IntakeWheels();
                 // frontCamera = new FrontCamera();
                 backCamera = new BackCamera();
+                noteTracker = new NoteTracker(drivetrain);
+                shotSolver = new ShotSolver(drivetrain, LimelightUtils.getShotMap());
                 visionManager = new DashBoardManager();
                 servos = new ShooterServos();
                 breakBeamSensorShooter = new BreakBeamSensorShooter();
                 breakBeamSensorIntake = new BreakBeamSensorIntake();
                 leds = new Leds();
 
+                // arm first so the shooter senses the arm angle from the same tick
+                controlLoop.register(arm, shooterRotation, wrist, shooterWheels);
+
+                power.addDevice("drive", drivetrain::getDriveSupplyCurrent);
+                power.addDevice("shooter wheels", shooterWheels::getSupplyCurrent);
+                power.addDevice("arm", arm::getSupplyCurrent);
+                power.addDevice("intake wheels", intakeWheels::getSupplyCurrent);
+                currentBudget.add("drive", drivetrain::isSprinting, PowerConstants.Budget.Drive.kIdle,
+                                PowerConstants.Budget.Drive.kBusy, drivetrain::setDriveSupplyCurrentLimit);
+                currentBudget.add("shooter wheels", shooterWheels::isSpinningUp, PowerConstants.Budget.Shooter.kIdle,
+                                PowerConstants.Budget.Shooter.kBusy, shooterWheels::setSupplyCurrentLimit);
+                // busy is what each mechanism is actually being asked to do, whichever command asks
+                currentBudget.add("arm", arm::isMoving, PowerConstants.Budget.Arm.kIdle,
+                                PowerConstants.Budget.Arm.kBusy, arm::setSupplyCurrentLimit);
+                currentBudget.add("wrist", wrist::isMoving, PowerConstants.Budget.Wrist.kIdle,
+                                PowerConstants.Budget.Wrist.kBusy, wrist::setSupplyCurrentLimit);
+                currentBudget.add("intake wheels", intakeWheels::isRunning, PowerConstants.Budget.Intake.kIdle,
+                                PowerConstants.Budget.Intake.kBusy, intakeWheels::setSupplyCurrentLimit);
+                // a climber holding its goal may be holding the robot up, it keeps its share
+                currentBudget.add("climber", () -> climber.isMoving() || climber.isHoldingGoal(),
+                                PowerConstants.Budget.Climber.kIdle, PowerConstants.Budget.Climber.kBusy,
+                                climber::setSupplyCurrentLimit);
+
+                power.onShed(PowerConstants.Load.INTAKE, intakeWheels::setPowerScale);
+                power.onShed(PowerConstants.Load.ARM_SPEED, arm::setPowerScale);
+                power.onShed(PowerConstants.Load.DRIVE_ACCELERATION,
+                                scale -> driveAccelerationLimit = scale < 1
+                                                ? PowerConstants.kMaxDriveAcceleration * scale
+                                                : Double.POSITIVE_INFINITY);
+
                 arm.getShuffleboardTab().add("arm", arm);
                 shooterWheels.getShuffleboardTab().add("shooter wheels", shooterWheels);
                 shooterRotation.getShuffleboardTab().add("shooter rotation", shooterRotation);
@@ -145,7 +212,12 @@ public class RobotContainer {
                 setupShooterCommands();
                 setupErrorTriggers();
                 setupAutonCommands();
+                setupSelfTestCommands();
+                setupEncoderCalibration();
 
+                if (Utils.isSimulation()) {
+                        setupVisionSimulation();
+                }
         }
 
         private void registerAllAutoCommands() {
@@ -155,7 +227,7 @@ public class RobotContainer {
                 NamedCommands.registerCommand("DeployIntake",
                                 new DeployIntake(wrist, intakeWheels, shooterRotation, breakBeamSensorIntake, leds));
                 NamedCommands.registerCommand("AlignShooterAndIntake",
-                                new AlignShooterAndIntake(shooterRotation, wrist, intakeWheels, servos,
+                                new AlignShooterAndIntake(arm, shooterRotation, wrist, intakeWheels, servos,
                                                 breakBeamSensorShooter, leds));
                 NamedCommands.registerCommand("ShootFromHandoff", //
                                 new ShootFromHandoff(wrist, shooterRotation, shooterWheels, servos,
@@ -168,9 +240,12 @@ public class RobotContainer {
                 // NamedCommands.registerCommand("FeedNoteToShooter", new
                 // AlignShooterAndIntake(shooterRotation, wrist, intakeWheels,
                 // servos, breakBeamSensorShooter, leds));
-                NamedCommands.registerCommand("DropIntake", new DropIntake(wrist, arm));
+                NamedCommands.registerCommand("DropIntake", new DropIntake(wrist, arm, shooterRotation));
                 NamedCommands.registerCommand("SetFieldRelative", new SetFieldRelative(drivetrain));
-                NamedCommands.registerCommand("AlignWithNote", new DriveForwardForTime(drivetrain, 2));
+                NamedCommands.registerCommand("AlignWithNote", new PickupNote(drivetrain, noteTracker, wrist,
+                                intakeWheels, breakBeamSensorIntake, leds));
+                NamedCommands.registerCommand("PickupNote", new PickupNote(drivetrain, noteTracker, wrist,
+                                intakeWheels, breakBeamSensorIntake, leds));
         }
 
         private void setupAutonCommands() {
@@ -283,11 +358,12 @@ public class RobotContainer {
         private void configureDefaultCommands() {
                 drivetrain.setDefaultCommand(new ParallelCommandGroup(
                                 drivetrain.applyRequest(() -> {
+                                        Translation2d velocity = limitDriveAcceleration(new Translation2d(
+                                                        -driverController.getLeftY() * SwerveConstants.MaxSpeed,
+                                                        -driverController.getLeftX() * SwerveConstants.MaxSpeed));
                                         return drive
-                                                        .withVelocityX(-driverController.getLeftY()
-                                                                        * SwerveConstants.MaxSpeed)
-                                                        .withVelocityY(-driverController.getLeftX()
-                                                                        * SwerveConstants.MaxSpeed)
+                                                        .withVelocityX(velocity.getX())
+                                                        .withVelocityY(velocity.getY())
                                                         .withRotationalRate(-driverController.getRightX() *
                                                                         SwerveConstants.MaxAngularRate);
                                 }), new RepeatCommand(
@@ -315,7 +391,22 @@ public class RobotContainer {
 
                 arm.setDefaultCommand(new RotateArmManual(arm, () -> -operatorController.getLeftY()));
 
-                shooterWheels.setDefaultCommand(new ShootNoteMotionMagicVelocity(shooterWheels, () -> 0));
+                PrespoolShooter prespool = new PrespoolShooter(shooterWheels,
+                                () -> breakBeamSensorIntake.getBeamBroken() || breakBeamSensorShooter.getBeamBroken(),
+                                shotSolver::getDistance, LimelightUtils.getShotMap());
+                power.onShed(PowerConstants.Load.PRESPOOL, prespool::setPowerScale);
+                shooterWheels.setDefaultCommand(prespool);
+        }
+
+        /** Caps how fast the driver's requested velocity can change while drive acceleration is shed. */
+        private Translation2d limitDriveAcceleration(Translation2d requested) {
+                Translation2d change = requested.minus(lastDriveVelocity);
+                double maxChange = driveAccelerationLimit * TimedRobot.kDefaultPeriod;
+                if (change.getNorm() > maxChange) {
+                        requested = lastDriveVelocity.plus(change.times(maxChange / change.getNorm()));
+                }
+                lastDriveVelocity = requested;
+                return requested;
         }
 
         private void configureDriverController() {
@@ -347,10 +438,8 @@ public class RobotContainer {
         public void configureOperatorController() {
                 // LOAD BUTTON
                 operatorController.leftBumper()
-                                .onTrue(new ParallelCommandGroup(
-                                                new RotateArmToPosition(arm, () -> 0),
-                                                new AlignShooterAndIntake(shooterRotation, wrist, intakeWheels,
-                                                                servos, breakBeamSensorShooter, leds)));
+                                .onTrue(new AlignShooterAndIntake(arm, shooterRotation, wrist, intakeWheels,
+                                                servos, breakBeamSensorShooter, leds));
 //                operatorController.rightBumper()
 //                                .onTrue(new ParallelCommandGroup(
 //                                                new ShootAcrossField(shooterRotation, shooterWheels, servos, breakBeamSensorShooter)
@@ -363,6 +452,15 @@ public class RobotContainer {
                 // // new RotateShooter(shooterRotation, () -> -5),
                 // new ResetIntake(wrist, intakeWheels)));
 
+                // SHOOT ON THE MOVE
+                operatorController.rightBumper()
+                                .onTrue(new ShootOnTheMove(drivetrain, shotSolver, shooterRotation, shooterWheels,
+                                                servos, driverController::getLeftX, driverController::getLeftY))
+                                .onFalse(new ParallelCommandGroup(
+                                                new RotateShooterBasic(shooterRotation, () -> 0),
+                                                new ShootNoteMotionMagicVelocity(shooterWheels, () -> 0),
+                                                new ResetIntake(wrist, intakeWheels)));
+
                 // AUTO AIM
                 operatorController.rightTrigger()
                                 .onTrue(new AimToAprilTag(drivetrain, driverController::getLeftX,
@@ -410,7 +508,7 @@ public class RobotContainer {
                 operatorController.povDown()
                                 .onTrue(new RotateArmToPosition(arm, () -> ArmConstants.ArmPIDForExternalEncoder.kArmRotationFeederSetpoint));
                 operatorController.a()
-                                .onTrue(new PlaceInAmp(wrist, intakeWheels, arm, leds)
+                                .onTrue(new PlaceInAmp(wrist, intakeWheels, arm, shooterRotation, leds)
                                                 .andThen(
                                                                 new ParallelCommandGroup(
                                                                                 new SetLEDColor(leds,
@@ -433,6 +531,129 @@ public class RobotContainer {
         private void setupErrorTriggers() {
                 // There should be some feedback for an "failure mode" but rumbling the
                 // controller continuously was obnoxious lol.
+
+                // Stalls: back a jammed note out, and stop pushing a joint into whatever it hit.
+                // Taking the subsystem cancels the command that was driving it.
+                intakeWheels.stalled().onTrue(
+                                new RunIntakeWheels(intakeWheels, () -> -IntakeConstants.kIntakeNoteWheelSpeed)
+                                                .withTimeout(StallConstants.IntakeWheels.kReverseTime));
+                arm.stalled().onTrue(new InstantCommand(() -> {
+                        arm.setArmHoldActive(false); // hold where it stopped, not at an older hold angle
+                        arm.hold();
+                }, arm));
+                wrist.stalled().onTrue(new InstantCommand(() -> wrist.setWristVoltage(0), wrist));
+                // held for a while, or the default prespool would spin straight back into the jam
+                shooterWheels.stalled().onTrue(shooterWheels.run(() -> shooterWheels.setShootVoltage(0))
+                                .withTimeout(StallConstants.ShooterWheels.kStopTime));
+        }
+
+        private void setupSelfTestCommands() {
+                // after a good run, so later runs are compared against it
+                Shuffleboard.getTab("selftest").add("Save Self-Test Baselines",
+                                new InstantCommand(selfTestBaselines::save).ignoringDisable(true));
+        }
+
+        /*
+         * Through bore offsets, saved to Preferences. Put the mechanism somewhere its angle is
+         * known, type the angle in and press the button, disabled.
+         */
+        private void setupEncoderCalibration() {
+                GenericEntry armAngle = arm.getShuffleboardTab().add("Arm Calibration Angle", 0).getEntry();
+                arm.getShuffleboardTab().add("Calibrate Arm Encoder",
+                                new InstantCommand(() -> arm.calibrateEncoder(armAngle.getDouble(0)), arm)
+                                                .ignoringDisable(true));
+
+                GenericEntry shooterAngle = shooterRotation.getShuffleboardTab()
+                                .add("Shooter Calibration Angle", 0).getEntry();
+                shooterRotation.getShuffleboardTab().add("Calibrate Shooter Encoder",
+                                new InstantCommand(() -> shooterRotation.calibrateEncoder(shooterAngle.getDouble(0)),
+                                                shooterRotation).ignoringDisable(true));
+
+                GenericEntry wristAngle = wrist.getShuffleboardTab().add("Wrist Calibration Angle", 0).getEntry();
+                wrist.getShuffleboardTab().add("Calibrate Wrist Encoder",
+                                new InstantCommand(() -> wrist.calibrateEncoder(wristAngle.getDouble(0)), wrist)
+                                                .ignoringDisable(true));
+        }
+
+        /**
+         * Step response of every mechanism in turn, compared with the baselines.
+         * Run in Test mode, in the pits with the robot on a cart. The arm, shooter
+         * and wrist get to their start poses through the planner, and each of their
+         * steps holds the other two there.
+         */
+        public Command getSelfTestCommand() {
+                MoveSuperstructure toStartPose = new MoveSuperstructure(arm, shooterRotation, wrist,
+                                SelfTestConstants.Arm.kStart, SelfTestConstants.ShooterRotation.kStart,
+                                SelfTestConstants.Wrist.kStart);
+
+                return new SequentialCommandGroup(
+                                toStartPose,
+                                new SequentialCommandGroup(
+                                                new StepTest("Arm", angle -> holdSelfTestPose(angle,
+                                                                SelfTestConstants.ShooterRotation.kStart,
+                                                                SelfTestConstants.Wrist.kStart),
+                                                                arm::getArmAngle, arm::getSupplyCurrent,
+                                                                SelfTestConstants.Arm.kStart, SelfTestConstants.Arm.kStep,
+                                                                SettleConstants.Arm.kPositionTolerance,
+                                                                SelfTestConstants.Arm.kDuration, selfTestBaselines,
+                                                                arm, shooterRotation, wrist),
+                                                new StepTest("Wrist", angle -> holdSelfTestPose(
+                                                                SelfTestConstants.Arm.kStart,
+                                                                SelfTestConstants.ShooterRotation.kStart, angle),
+                                                                wrist::getWristAngle, wrist::getSupplyCurrent,
+                                                                SelfTestConstants.Wrist.kStart, SelfTestConstants.Wrist.kStep,
+                                                                SettleConstants.Wrist.kPositionTolerance,
+                                                                SelfTestConstants.Wrist.kDuration, selfTestBaselines,
+                                                                arm, shooterRotation, wrist),
+                                                new StepTest("ShooterRotation", angle -> holdSelfTestPose(
+                                                                SelfTestConstants.Arm.kStart, angle,
+                                                                SelfTestConstants.Wrist.kStart),
+                                                                shooterRotation::getEncoderAngle,
+                                                                shooterRotation::getSupplyCurrent,
+                                                                SelfTestConstants.ShooterRotation.kStart,
+                                                                SelfTestConstants.ShooterRotation.kStep,
+                                                                SettleConstants.Shooter.kPositionTolerance,
+                                                                SelfTestConstants.ShooterRotation.kDuration,
+                                                                selfTestBaselines, arm, shooterRotation, wrist))
+                                                .onlyIf(toStartPose::atGoal),
+                                new StepTest("ShooterWheels", shooterWheels::setShootVelocity,
+                                                shooterWheels::getMeasuredVelocity, shooterWheels::getSupplyCurrent,
+                                                0, SelfTestConstants.ShooterWheels.kStep,
+                                                SelfTestConstants.ShooterWheels.kTolerance,
+                                                SelfTestConstants.ShooterWheels.kDuration, selfTestBaselines,
+                                                shooterWheels),
+                                new StepTest("IntakeWheels", intakeWheels::setIntakeVelocity,
+                                                intakeWheels::getIntakeVelocity, intakeWheels::getSupplyCurrent,
+                                                0, SelfTestConstants.IntakeWheels.kStep,
+                                                SelfTestConstants.IntakeWheels.kTolerance,
+                                                SelfTestConstants.IntakeWheels.kDuration, selfTestBaselines,
+                                                intakeWheels),
+                                // the auto-home trigger stays out of Test mode, so home here
+                                new HomeClimber(climber).unless(climber::isHomed),
+                                new StepTest("Climber", climber::setGoal, climber::getPosition,
+                                                () -> climber.getRightCurrent() + climber.getLeftCurrent(),
+                                                SelfTestConstants.Climber.kStart, SelfTestConstants.Climber.kStep,
+                                                ClimberConstants.kPositionTolerance,
+                                                SelfTestConstants.Climber.kDuration, selfTestBaselines, climber)
+                                                .onlyIf(climber::isHomed),
+                                new InstantCommand(() -> {
+                                        arm.rotateOrHold(0);
+                                        wrist.setWristVoltage(0);
+                                        shooterRotation.setRotateVoltage(0);
+                                        shooterWheels.setShootVelocity(0);
+                                        intakeWheels.setIntakeWheels(0);
+                                        climber.setClimberVoltage(0);
+                                }, arm, wrist, shooterRotation, shooterWheels, intakeWheels, climber));
+        }
+
+        /** Closed loop on all three superstructure joints, for the self-test steps. */
+        private void holdSelfTestPose(double armAngle, double shooterAngle, double wristAngle) {
+                arm.setArmHoldActive(false);
+                arm.setPIDTarget(armAngle);
+                shooterRotation.setPIDTarget(shooterAngle);
+                shooterRotation.rotateShooterPID();
+                wrist.setPIDTarget(wristAngle);
+                wrist.rotateWristPID();
         }
 
         public Command getAutonomousCommand() {
@@ -516,9 +737,50 @@ public class RobotContainer {
 
         }
 
+        private void setupVisionSimulation() {
+                ShuffleboardTab simTab = Shuffleboard.getTab("vision sim");
+
+                LimelightSimServer scriptedServer = new LimelightSimServer(
+                                CameraConstants.BackCam.BACK_CAMERA_NETWORK_TABLES_NAME)
+                                .withSpeed(CameraConstants.Sim.kReplaySpeed)
+                                .withLatency(CameraConstants.Sim.kReplayLatencyMs)
+                                .withJitter(CameraConstants.Sim.kReplayJitterMs)
+                                .loadScenario(LimelightSimServer.Scenario.speakerApproach(
+                                                CameraConstants.Sim.kSpeakerTagId, 0, -15, 4, 0.02,
+                                                CameraConstants.Sim.kReplayLatencyMs));
+                simTab.add("Replay Speaker Approach", new InstantCommand(scriptedServer::start).ignoringDisable(true));
+                simTab.add("Stop Speaker Approach", new InstantCommand(scriptedServer::stop).ignoringDisable(true));
+
+                File replayLog = new File(Filesystem.getDeployDirectory(), CameraConstants.Sim.kReplayLogFile);
+                if (replayLog.exists()) {
+                        try {
+                                LimelightSimServer logServer = new LimelightSimServer(
+                                                CameraConstants.BackCam.BACK_CAMERA_NETWORK_TABLES_NAME)
+                                                .withSpeed(CameraConstants.Sim.kReplaySpeed)
+                                                .withLatency(CameraConstants.Sim.kReplayLatencyMs)
+                                                .withJitter(CameraConstants.Sim.kReplayJitterMs)
+                                                .loadWpilog(replayLog.getPath());
+                                simTab.add("Replay Limelight Log", new InstantCommand(logServer::start).ignoringDisable(true));
+                                simTab.add("Stop Limelight Log", new InstantCommand(logServer::stop).ignoringDisable(true));
+                        } catch (IOException e) {
+                                DriverStation.reportWarning("Could not load " + replayLog + ": " + e.getMessage(), false);
+                        }
+                }
+        }
+
         private void setupClimberCommands() {
                 climber.getShuffleboardTab().add("Run Climber Simple",
                                 new ExtendClimber(climber,
                                                 () -> ClimberConstants.kClimberSpeed));
+                climber.getShuffleboardTab().add("Home Climber", new HomeClimber(climber));
+                climber.getShuffleboardTab().add("Extend Climber",
+                                new MoveClimberToPosition(climber, ClimberConstants.kExtendPosition));
+                climber.getShuffleboardTab().add("Climb",
+                                new MoveClimberToPosition(climber, ClimberConstants.kClimbPosition));
+
+                // find the hard stop the first time the robot is enabled, except in Test mode where
+                // the self-test homes it after the other mechanisms
+                new Trigger(() -> DriverStation.isEnabled() && !DriverStation.isTest() && !climber.isHomed())
+                                .onTrue(new HomeClimber(climber));
         }
 }
@@ -8,6 +8,10 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import frc.robot.subsystems.Intake.Wrist;
 
+/**
+ * Moves the wrist to an angle, finishes once it has settled there (see
+ * {@link frc.robot.utils.SettleDetector}) and lets it go.
+ */
 public class RotateWristToPosition extends Command {
   /** Creates a new wristIn. */
   private final Wrist c_intake;
@@ -54,7 +58,7 @@ public class RotateWristToPosition extends Command {
   // Returns true when the command should end.
   @Override
   public boolean isFinished() {
-    return c_failure || c_intake.pidAtSetpoint();
+    return c_failure || c_intake.isSettled();
     // return false;
   }
 }
@@ -12,11 +12,12 @@ import frc.robot.subsystems.Intake.IntakeWheels;
 public class RunIntakeWheels extends Command {
   /** Creates a new IntakeIn. */
   private final IntakeWheels c_intake;
-  private final DoubleSupplier c_intakeVoltage;
+  private final DoubleSupplier c_intakeSpeed;
 
-  public RunIntakeWheels(IntakeWheels intake, DoubleSupplier intakeVoltage) {
+  /** @param intakeSpeed wheel speed in rpm */
+  public RunIntakeWheels(IntakeWheels intake, DoubleSupplier intakeSpeed) {
     c_intake = intake;
-    c_intakeVoltage = intakeVoltage;
+    c_intakeSpeed = intakeSpeed;
 
     addRequirements(c_intake);
       // use addRequirements( here to declare subsystem dependentc
@@ -29,7 +30,7 @@ public class RunIntakeWheels extends Command {
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
-    c_intake.setIntakeWheels(c_intakeVoltage.getAsDouble());
+    c_intake.setIntakeVelocity(c_intakeSpeed.getAsDouble());
     
   }
 
@@ -10,11 +10,16 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import frc.robot.subsystems.arm.Arm;
 
+/**
+ * Moves the arm to an angle and finishes once it has settled there, see
+ * {@link frc.robot.utils.SettleDetector}, then holds it.
+ */
 public class RotateArmToPosition extends Command {
     /** Creates a new RotateArm. */
     private final Arm c_arm;
     private final DoubleSupplier c_angle;
     private final boolean c_failure;
+    private double target;
 
     public RotateArmToPosition(Arm arm, DoubleSupplier desiredAngle) {
         c_arm = arm;
@@ -34,7 +39,8 @@ public class RotateArmToPosition extends Command {
     // Called when the command is initially scheduled.
     @Override
     public void initialize() {
-        c_arm.setPIDTarget(c_angle.getAsDouble());
+        target = c_angle.getAsDouble();
+        c_arm.setPIDTarget(target);
     }
 
     // Called every time the scheduler runs while the command is scheduled.
@@ -51,12 +57,18 @@ public class RotateArmToPosition extends Command {
     // Called once the command ends or is interrupted.
     @Override
     public void end(boolean interrupted) {
-        c_arm.rotateOrHold(0);
+        if (interrupted || c_failure) {
+            c_arm.rotateOrHold(0);
+        } else {
+            // hold the target rather than wherever it is, in case it's still inside the tolerance band
+            c_arm.setArmHoldActive(false);
+            c_arm.hold(target);
+        }
     }
 
     // Returns true when the command should end.
     @Override
     public boolean isFinished() {
-        return c_failure || c_arm.isArmAtTarget();
+        return c_failure || c_arm.isSettled();
     }
 }
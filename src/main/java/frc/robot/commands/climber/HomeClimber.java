@@ -0,0 +1,61 @@
+package frc.robot.commands.climber;
+
+import edu.wpi.first.math.filter.Debouncer;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.constants.ClimberConstants.Homing;
+import frc.robot.subsystems.climber.Climber;
+
+/**
+ * Drives both climber hooks down into the hard stop. Each side stops once its
+ * current has stayed above {@link Homing#kCurrent} for {@link Homing#kTime};
+ * when both have, the climber zeroes there. Gives up after
+ * {@link Homing#kTimeout} and leaves the climber unhomed.
+ */
+public class HomeClimber extends Command {
+  private final Climber c_climber;
+
+  private final Debouncer rightStalled = new Debouncer(Homing.kTime);
+  private final Debouncer leftStalled = new Debouncer(Homing.kTime);
+  private final Timer timer = new Timer();
+  private boolean rightHome = false;
+  private boolean leftHome = false;
+
+  public HomeClimber(Climber climber) {
+    c_climber = climber;
+    addRequirements(c_climber);
+  }
+
+  @Override
+  public void initialize() {
+    rightHome = false;
+    leftHome = false;
+    rightStalled.calculate(false);
+    leftStalled.calculate(false);
+    timer.restart();
+  }
+
+  @Override
+  public void execute() {
+    rightHome |= rightStalled.calculate(Math.abs(c_climber.getRightCurrent()) > Homing.kCurrent);
+    leftHome |= leftStalled.calculate(Math.abs(c_climber.getLeftCurrent()) > Homing.kCurrent);
+    c_climber.setSideVoltages(rightHome ? 0 : Homing.kVoltage, leftHome ? 0 : Homing.kVoltage);
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    c_climber.setClimberVoltage(0);
+    if (rightHome && leftHome) {
+      c_climber.finishHoming();
+    } else {
+      DriverStation.reportWarning("Climber: homing " + (interrupted ? "interrupted" : "timed out")
+          + ", closed-loop moves stay off", false);
+    }
+  }
+
+  @Override
+  public boolean isFinished() {
+    return (rightHome && leftHome) || timer.hasElapsed(Homing.kTimeout);
+  }
+}
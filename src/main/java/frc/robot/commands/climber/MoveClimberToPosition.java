@@ -0,0 +1,38 @@
+package frc.robot.commands.climber;
+
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.subsystems.climber.Climber;
+
+/**
+ * Profiles both climber hooks to a position in inches above the hard stop and
+ * finishes when both are there. Retracting uses the faster profile, see
+ * {@link Climber}.
+ */
+public class MoveClimberToPosition extends Command {
+  private final Climber c_climber;
+  private final double c_position;
+
+  public MoveClimberToPosition(Climber climber, double position) {
+    c_climber = climber;
+    c_position = position;
+    addRequirements(c_climber);
+  }
+
+  @Override
+  public void initialize() {
+    c_climber.setGoal(c_position);
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    if (interrupted) {
+      c_climber.setClimberVoltage(0);
+    }
+    // otherwise the hooks keep holding the goal, with the robot on them
+  }
+
+  @Override
+  public boolean isFinished() {
+    return !c_climber.isHomed() || c_climber.atGoal();
+  }
+}
@@ -8,15 +8,19 @@ import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.ParallelDeadlineGroup;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import edu.wpi.first.wpilibj2.command.WaitCommand;
+import edu.wpi.first.wpilibj2.command.WaitUntilCommand;
 import frc.robot.commands.Intake.RotateWristToPosition;
 import frc.robot.commands.Intake.RunIntakeWheels;
 import frc.robot.commands.leds.SetLEDColor;
 import frc.robot.commands.shooter.EjectNote;
 import frc.robot.commands.shooter.RotateShooterToPosition;
+import frc.robot.commands.superstructure.MoveSuperstructure;
+import frc.robot.constants.ArmConstants;
 import frc.robot.constants.IntakeConstants;
 import frc.robot.constants.ShooterConstants;
 import frc.robot.subsystems.Intake.IntakeWheels;
 import frc.robot.subsystems.Intake.Wrist;
+import frc.robot.subsystems.arm.Arm;
 import frc.robot.subsystems.leds.Leds;
 import frc.robot.subsystems.sensors.BreakBeamSensorShooter;
 import frc.robot.subsystems.shooter.ShooterRotation;
@@ -26,14 +30,21 @@ import frc.robot.subsystems.shooter.ShooterServos;
 // information, see:
 // https://docs.wpilib.org/en/stable/docs/software/commandbased/convenience-features.html
 public class AlignShooterAndIntake extends ParallelCommandGroup {
-  /** Creates a new AlignShooterAndIntake. */
-  public AlignShooterAndIntake(ShooterRotation shooterRotation, Wrist wrist, IntakeWheels intakeWheels,
+  /**
+   * Creates a new AlignShooterAndIntake. The arm, shooter and wrist move to the
+   * handoff pose together and hold it while the note is passed over.
+   */
+  public AlignShooterAndIntake(Arm arm, ShooterRotation shooterRotation, Wrist wrist, IntakeWheels intakeWheels,
       ShooterServos servos, BreakBeamSensorShooter breakBeamSensorShooter, Leds leds) {
+    MoveSuperstructure move = new MoveSuperstructure(arm, shooterRotation, wrist,
+        ArmConstants.ArmPIDForExternalEncoder.kArmRotationFeederSetpoint,
+        ShooterConstants.RotationPIDForExternalEncoder.kShooterRotationFeederSetpoint,
+        IntakeConstants.WristPID.kWristShooterFeederSetpoint)
+        .keepHolding();
     addCommands(
-        new RotateShooterToPosition(shooterRotation,
-            () -> ShooterConstants.RotationPIDForExternalEncoder.kShooterRotationFeederSetpoint),
+        move,
         new SequentialCommandGroup(
-            new RotateWristToPosition(wrist, IntakeConstants.WristPID.kWristShooterFeederSetpoint),
+            new WaitUntilCommand(move::atGoal),
             new ParallelCommandGroup(
                 new RunIntakeWheels(intakeWheels, () -> IntakeConstants.kHandoffNoteWheelSpeed),
                 new EjectNote(servos),
@@ -10,6 +10,7 @@ import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import frc.robot.commands.Intake.RotateWristToPosition;
 import frc.robot.commands.Intake.RunIntakeWheels;
 import frc.robot.commands.arm.RotateArmToPosition;
+import frc.robot.commands.superstructure.MoveSuperstructure;
 import frc.robot.constants.ArmConstants;
 import frc.robot.constants.IntakeConstants;
 import frc.robot.constants.CANConstants.Arm;
@@ -23,15 +24,14 @@ import frc.robot.subsystems.shooter.ShooterRotation;
 // https://docs.wpilib.org/en/stable/docs/software/commandbased/convenience-features.html
 public class DropIntake extends SequentialCommandGroup {
     /** Creates a new DeployIntake. */
-    public DropIntake(Wrist wrist, frc.robot.subsystems.arm.Arm arm) {
+    public DropIntake(Wrist wrist, frc.robot.subsystems.arm.Arm arm, ShooterRotation shooterRotation) {
 
         // Add your commands in the addCommands() call, e.g.
         // addCommands(new FooCommand(), new BarCommand());
         addCommands(
-              new ParallelCommandGroup(
-                  new RotateWristToPosition(wrist, IntakeConstants.WristPID.kWristNotePosition),
-                new RotateArmToPosition(arm, () -> ArmConstants.ArmPIDForExternalEncoder.kArmRotationFeederSetpoint)
-              ));
+              new MoveSuperstructure(arm, shooterRotation, wrist,
+                  ArmConstants.ArmPIDForExternalEncoder.kArmRotationFeederSetpoint, Double.NaN,
+                  IntakeConstants.WristPID.kWristNotePosition));
       
     }
 }
@@ -7,13 +7,14 @@ package frc.robot.commands.compound;
 import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.ParallelDeadlineGroup;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import edu.wpi.first.wpilibj2.command.WaitCommand;
+import edu.wpi.first.wpilibj2.command.WaitUntilCommand;
 import frc.robot.commands.Intake.RotateWristToPositionInfinite;
 import frc.robot.commands.Intake.RunIntakeWheels;
 import frc.robot.commands.arm.RotateArmToPosition;
 import frc.robot.commands.shooter.RotateShooterToPosition;
 import frc.robot.constants.ArmConstants;
 import frc.robot.constants.IntakeConstants;
+import frc.robot.constants.SettleConstants;
 import frc.robot.constants.ShooterConstants;
 import frc.robot.subsystems.Intake.IntakeWheels;
 import frc.robot.subsystems.Intake.Wrist;
@@ -31,13 +32,15 @@ public class FeedNoteToShooter extends ParallelCommandGroup {
     addCommands(
         new RotateArmToPosition(arm, () -> ArmConstants.ArmPIDForExternalEncoder.kArmRotationFeederSetpoint), //Rotate arm 2.0 degrees
         new SequentialCommandGroup( 
-            new WaitCommand(ArmConstants.kArmRotationDelay), //Wait 3 seconds
+            // the wrist and shooter clear the arm's last bit of travel, no need to wait it out
+            new WaitUntilCommand(() -> arm.settlesWithin(SettleConstants.Arm.kFeedLead)),
             new ParallelCommandGroup(
                 new RotateWristToPositionInfinite(wrist, IntakeConstants.WristPID.kWristShooterFeederSetpoint), //Rotate Intake to the setpoint (7) (90 degrees)
                 new RotateShooterToPosition(shooterRotation,
                     () -> ShooterConstants.RotationPIDForExternalEncoder.kShooterRotationFeederSetpoint), //PROBLEM (NOT ROTATING)
                 new SequentialCommandGroup(
-                    new WaitCommand(ShooterConstants.kRotateShooterDelay),
+                    new WaitUntilCommand(() -> wrist.settlesWithin(SettleConstants.Wrist.kFeedLead)
+                        && shooterRotation.settlesWithin(SettleConstants.Shooter.kFeedLead)),
                     new ParallelDeadlineGroup(
                         new RunIntakeWheels(wheels, () -> IntakeConstants.kIntakeNoteWheelSpeed))))));
   }
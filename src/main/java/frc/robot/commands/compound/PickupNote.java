@@ -0,0 +1,47 @@
+package frc.robot.commands.compound;
+
+import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
+import edu.wpi.first.wpilibj2.command.ParallelDeadlineGroup;
+import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import edu.wpi.first.wpilibj2.command.WaitCommand;
+import frc.robot.commands.Intake.RotateWristToPosition;
+import frc.robot.commands.Intake.RotateWristToPositionInfinite;
+import frc.robot.commands.Intake.RunIntakeWheels;
+import frc.robot.commands.leds.SetLEDColor;
+import frc.robot.commands.vision.DriveToNote;
+import frc.robot.constants.CameraConstants;
+import frc.robot.constants.IntakeConstants;
+import frc.robot.subsystems.Intake.IntakeWheels;
+import frc.robot.subsystems.Intake.Wrist;
+import frc.robot.subsystems.leds.Leds;
+import frc.robot.subsystems.sensors.BreakBeamSensorIntake;
+import frc.robot.subsystems.swerve.CommandSwerveDrivetrain;
+import frc.robot.subsystems.vision_sys.NoteTracker;
+
+/**
+ * Deploys the intake while driving onto the tracked note, then stows the wrist.
+ * Ends right away if no note has been seen, instead of driving blind.
+ */
+public class PickupNote extends SequentialCommandGroup {
+  public PickupNote(CommandSwerveDrivetrain drivetrain, NoteTracker tracker, Wrist wrist, IntakeWheels intakeWheels,
+      BreakBeamSensorIntake breakBeamSensorIntake, Leds leds) {
+    addCommands(
+        new ParallelDeadlineGroup(
+            new DriveToNote(drivetrain, tracker,
+                () -> Math.abs(wrist.getWristAngle() - IntakeConstants.WristPID.kWristNotePosition)
+                    < IntakeConstants.WristPID.kRotationTolerance * 2,
+                breakBeamSensorIntake::getBeamBroken)
+                .withTimeout(CameraConstants.NoteTracking.kPickupTimeout),
+            new RotateWristToPositionInfinite(wrist, IntakeConstants.WristPID.kWristNotePosition),
+            new RunIntakeWheels(intakeWheels, () -> IntakeConstants.kIntakeNoteWheelSpeed)),
+        new ParallelCommandGroup(
+            new SetLEDColor(leds, Leds.LedColors.YELLOW),
+            new ParallelDeadlineGroup(
+                new WaitCommand(IntakeConstants.kDistanceSensorDetectedDelay),
+                new RunIntakeWheels(intakeWheels, () -> IntakeConstants.kIntakeNoteWheelSpeed)))
+            .onlyIf(breakBeamSensorIntake::getBeamBroken),
+        new ParallelDeadlineGroup(
+            new RotateWristToPosition(wrist, IntakeConstants.WristPID.kWristIdlePosition),
+            new RunIntakeWheels(intakeWheels, () -> 0)));
+  }
+}
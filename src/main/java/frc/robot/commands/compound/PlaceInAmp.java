@@ -1,31 +1,28 @@
 package frc.robot.commands.compound;
 
 import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
-import edu.wpi.first.wpilibj2.command.ParallelDeadlineGroup;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import edu.wpi.first.wpilibj2.command.WaitCommand;
+import edu.wpi.first.wpilibj2.command.WaitUntilCommand;
 import frc.robot.commands.Intake.RunIntakeWheels;
-import frc.robot.commands.arm.RotateArmToPosition;
-import frc.robot.commands.leds.SetLEDColor;
-import frc.robot.commands.Intake.RotateWristToPosition;
-import frc.robot.commands.Intake.RotateWristToPositionInfinite;
+import frc.robot.commands.superstructure.MoveSuperstructure;
 import frc.robot.constants.ArmConstants;
 import frc.robot.constants.IntakeConstants;
 import frc.robot.subsystems.Intake.IntakeWheels;
 import frc.robot.subsystems.Intake.Wrist;
 import frc.robot.subsystems.arm.Arm;
 import frc.robot.subsystems.leds.Leds;
+import frc.robot.subsystems.shooter.ShooterRotation;
 
 public class PlaceInAmp extends ParallelCommandGroup {
-  public PlaceInAmp(Wrist wrist, IntakeWheels wheels, Arm arm, Leds leds) {
+  public PlaceInAmp(Wrist wrist, IntakeWheels wheels, Arm arm, ShooterRotation shooterRotation, Leds leds) {
+    // arm and wrist move together, the wheels score as soon as both are there
+    MoveSuperstructure move = new MoveSuperstructure(arm, shooterRotation, wrist,
+            ArmConstants.ArmPIDForExternalEncoder.kAmpPosition, Double.NaN, IntakeConstants.WristPID.kAmpPosition)
+            .keepHolding();
     addCommands(
-            new RotateArmToPosition(arm, () -> ArmConstants.ArmPIDForExternalEncoder.kAmpPosition),
+            move,
             new SequentialCommandGroup(
-                    new WaitCommand(0.25),
-                    new RotateWristToPositionInfinite(wrist, IntakeConstants.WristPID.kAmpPosition)
-            ),
-            new SequentialCommandGroup(
-                    new WaitCommand(3.2),
+                    new WaitUntilCommand(move::atGoal),
                     new RunIntakeWheels(wheels, () -> IntakeConstants.kAmpInWheelSpeed)
             ));
   }
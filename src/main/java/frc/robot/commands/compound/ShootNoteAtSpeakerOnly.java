@@ -4,26 +4,31 @@
 
 package frc.robot.commands.compound;
 
+import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.ParallelDeadlineGroup;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
-import edu.wpi.first.wpilibj2.command.WaitCommand;
 import frc.robot.commands.shooter.EjectNote;
 import frc.robot.commands.shooter.RotateShooterToPosition;
 import frc.robot.commands.shooter.ShootNoteMotionMagicVelocity;
+import frc.robot.commands.shooter.WaitForShotReady;
+import frc.robot.constants.ShooterConstants;
 import frc.robot.subsystems.sensors.BreakBeamSensorShooter;
 import frc.robot.subsystems.shooter.ShooterRotation;
 import frc.robot.subsystems.shooter.ShooterServos;
 import frc.robot.subsystems.shooter.ShooterWheels;
 import frc.robot.subsystems.vision_sys.VisionVariables.ExportedVariables;
 import frc.robot.utils.LimelightUtils;
+import frc.robot.utils.ShotReadiness;
 
 // NOTE:  Consider using this command inline, rather than writing a subclass.  For more
 // information, see:
 // https://docs.wpilib.org/en/stable/docs/software/commandbased/convenience-features.html
 public class ShootNoteAtSpeakerOnly extends SequentialCommandGroup {
   /**
-   * Creates a new ShootNoteAtSpeakerOnly.
+   * Creates a new ShootNoteAtSpeakerOnly. Feeds as soon as the wheels, pivot,
+   * heading and vision are all ready instead of after a fixed delay. Nothing here
+   * turns the robot; heading is checked against the offset AimToAprilTag aimed at.
    * 
    * @param shooterRotation
    * @param shooterWheels
@@ -34,14 +39,16 @@ public class ShootNoteAtSpeakerOnly extends SequentialCommandGroup {
     // addCommands(new FooCommand(), new BarCommand());
     addCommands(
         new ParallelDeadlineGroup(
-            new WaitCommand(1),
+            new SequentialCommandGroup(
+                new WaitForShotReady(new ShotReadiness(shooterWheels, shooterRotation)
+                    .withHeadingError(ShotReadiness::speakerHeadingError)
+                    .withFreshVision()),
+                new InstantCommand(shooterWheels::notifyShot),
+                new EjectNote(servos).withTimeout(ShooterConstants.Readiness.kFeedTime)),
             new RotateShooterToPosition(shooterRotation,
                 () -> LimelightUtils.GetSpeedAngle(
                     ExportedVariables.Distance).angle),
             new ShootNoteMotionMagicVelocity(shooterWheels,
-                () -> LimelightUtils.GetSpeedAngle(ExportedVariables.Distance).speed),
-            new SequentialCommandGroup(
-                new WaitCommand(0.7),
-                new EjectNote(servos))));
+                () -> LimelightUtils.GetSpeedAngle(ExportedVariables.Distance).speed)));
   }
 }
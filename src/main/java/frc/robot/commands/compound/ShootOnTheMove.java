@@ -0,0 +1,44 @@
+package frc.robot.commands.compound;
+
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj2.command.InstantCommand;
+import edu.wpi.first.wpilibj2.command.ParallelDeadlineGroup;
+import edu.wpi.first.wpilibj2.command.RunCommand;
+import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import frc.robot.commands.shooter.EjectNote;
+import frc.robot.commands.shooter.RotateShooterToPosition;
+import frc.robot.commands.shooter.WaitForShotReady;
+import frc.robot.commands.swerve.AimWhileMoving;
+import frc.robot.constants.ShooterConstants;
+import frc.robot.subsystems.shooter.ShooterRotation;
+import frc.robot.subsystems.shooter.ShooterServos;
+import frc.robot.subsystems.shooter.ShooterWheels;
+import frc.robot.subsystems.shooter.ShotSolver;
+import frc.robot.subsystems.swerve.CommandSwerveDrivetrain;
+import frc.robot.utils.ShotReadiness;
+
+/**
+ * Shoots at the speaker while the driver keeps driving. Heading, pivot angle and
+ * wheel speed all track the {@link ShotSolver} every loop; the note is fed as soon
+ * as the wheels, pivot and heading are all on target.
+ */
+public class ShootOnTheMove extends ParallelDeadlineGroup {
+  public ShootOnTheMove(CommandSwerveDrivetrain drivetrain, ShotSolver solver, ShooterRotation shooterRotation,
+      ShooterWheels shooterWheels, ShooterServos servos, DoubleSupplier leftX, DoubleSupplier leftY) {
+    this(new AimWhileMoving(drivetrain, solver, leftX, leftY), solver, shooterRotation, shooterWheels, servos);
+  }
+
+  private ShootOnTheMove(AimWhileMoving aim, ShotSolver solver, ShooterRotation shooterRotation,
+      ShooterWheels shooterWheels, ShooterServos servos) {
+    super(new SequentialCommandGroup(
+        new WaitForShotReady(new ShotReadiness(shooterWheels, shooterRotation)
+            .withHeadingError(aim::getHeadingError)),
+        new InstantCommand(shooterWheels::notifyShot),
+        new EjectNote(servos).withTimeout(ShooterConstants.Readiness.kFeedTime)));
+    addCommands(
+        aim,
+        new RotateShooterToPosition(shooterRotation, solver::getPivotAngle),
+        new RunCommand(() -> shooterWheels.setShootVelocityMotionMagic(solver.getWheelSpeed()), shooterWheels));
+  }
+}
@@ -0,0 +1,122 @@
+package frc.robot.commands.selftest;
+
+import java.util.List;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.util.datalog.StringLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import frc.robot.constants.SelfTestConstants;
+import frc.robot.utils.SelfTestBaselines;
+import frc.robot.utils.StepResponse;
+
+/**
+ * Holds a mechanism at {@code start} for {@link SelfTestConstants#kPrepTime},
+ * steps its target to {@code start + step}, records the response for
+ * {@code duration} and puts it back at the start. The measured response is
+ * compared with the mechanism's baseline, and the result is published under
+ * "SelfTest/..." and logged.
+ */
+public class StepTest extends Command {
+  private final String c_name;
+  private final DoubleConsumer c_setTarget;
+  private final DoubleSupplier c_position;
+  private final DoubleSupplier c_current;
+  private final double c_start;
+  private final double c_step;
+  private final double c_tolerance;
+  private final double c_duration;
+  private final SelfTestBaselines c_baselines;
+
+  private final StepResponse response;
+  private final StringLogEntry resultLog;
+  private final Timer timer = new Timer();
+  private boolean stepped = false;
+
+  /**
+   * @param setTarget sends the mechanism a closed-loop target
+   * @param tolerance settle band, in the position's units
+   * @param duration  seconds to record after the step
+   */
+  public StepTest(String name, DoubleConsumer setTarget, DoubleSupplier position, DoubleSupplier current,
+      double start, double step, double tolerance, double duration, SelfTestBaselines baselines,
+      Subsystem... requirements) {
+    c_name = name;
+    c_setTarget = setTarget;
+    c_position = position;
+    c_current = current;
+    c_start = start;
+    c_step = step;
+    c_tolerance = tolerance;
+    c_duration = duration;
+    c_baselines = baselines;
+
+    response = new StepResponse((int) Math.ceil(duration / TimedRobot.kDefaultPeriod) + 1);
+    resultLog = new StringLogEntry(DataLogManager.getLog(), "/selftest/" + name);
+    addRequirements(requirements);
+  }
+
+  @Override
+  public void initialize() {
+    stepped = false;
+    response.reset();
+    c_setTarget.accept(c_start);
+    timer.restart();
+    SmartDashboard.putString("SelfTest/" + c_name, "running");
+  }
+
+  @Override
+  public void execute() {
+    if (!stepped) {
+      if (timer.hasElapsed(SelfTestConstants.kPrepTime)) {
+        c_setTarget.accept(c_start + c_step);
+        timer.restart();
+        stepped = true;
+      }
+      return;
+    }
+    response.record(timer.get(), c_position.getAsDouble(), c_current.getAsDouble());
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    c_setTarget.accept(c_start);
+    if (interrupted) {
+      SmartDashboard.putString("SelfTest/" + c_name, "interrupted");
+      return;
+    }
+
+    StepResponse.Result result = response.analyze(c_start, c_start + c_step, c_tolerance);
+    SmartDashboard.putNumber("SelfTest/" + c_name + " rise time", result.riseTime);
+    SmartDashboard.putNumber("SelfTest/" + c_name + " settling time", result.settlingTime);
+    SmartDashboard.putNumber("SelfTest/" + c_name + " overshoot", result.overshoot);
+    SmartDashboard.putNumber("SelfTest/" + c_name + " steady-state error", result.steadyStateError);
+    SmartDashboard.putNumber("SelfTest/" + c_name + " peak current", result.peakCurrent);
+
+    List<String> regressions = c_baselines.compare(c_name, c_tolerance, result);
+    String summary;
+    if (regressions == null) {
+      summary = "no baseline";
+    } else if (regressions.isEmpty()) {
+      summary = "pass";
+    } else {
+      summary = "REGRESSED: " + String.join(", ", regressions);
+      DriverStation.reportWarning("Self-test " + c_name + " " + summary, false);
+    }
+    SmartDashboard.putString("SelfTest/" + c_name, summary);
+    resultLog.append(String.format("rise %.3f s, settle %.3f s, overshoot %.1f%%, error %.3f, peak %.1f A: %s",
+        result.riseTime, result.settlingTime, result.overshoot, result.steadyStateError, result.peakCurrent,
+        summary));
+  }
+
+  @Override
+  public boolean isFinished() {
+    return stepped && timer.hasElapsed(c_duration);
+  }
+}
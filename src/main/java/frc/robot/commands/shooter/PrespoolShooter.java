@@ -0,0 +1,84 @@
+package frc.robot.commands.shooter;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.constants.ShooterConstants.Prespool;
+import frc.robot.subsystems.shooter.ShooterWheels;
+import frc.robot.utils.ShotMap;
+
+/**
+ * Default command for the shooter wheels. Spins the wheels up as soon as a note
+ * is held so the shot doesn't pay the whole Motion Magic ramp:
+ * <ul>
+ * <li>no note: stopped</li>
+ * <li>note, in range of the speaker (or auto, or endgame): the shot map speed
+ * for the current distance</li>
+ * <li>note, out of range: an idle speed that keeps most of the spin-up</li>
+ * </ul>
+ * Spins down while the {@link frc.robot.utils.PowerCoordinator} has shed it, see
+ * {@link #setPowerScale}.
+ */
+public class PrespoolShooter extends Command {
+  private final ShooterWheels c_shooterWheels;
+  private final BooleanSupplier c_hasNote;
+  private final DoubleSupplier c_distance;
+  private final ShotMap c_shotMap;
+
+  private double powerScale = 1;
+  private double lastSpeed = Double.NaN;
+
+  public PrespoolShooter(ShooterWheels wheels, BooleanSupplier hasNote, DoubleSupplier distance, ShotMap shotMap) {
+    c_shooterWheels = wheels;
+    c_hasNote = hasNote;
+    c_distance = distance;
+    c_shotMap = shotMap;
+
+    addRequirements(c_shooterWheels);
+  }
+
+  @Override
+  public void initialize() {
+    // whoever had the wheels may have left them anywhere
+    lastSpeed = Double.NaN;
+  }
+
+  @Override
+  public void execute() {
+    double speed = 0;
+    if (c_hasNote.getAsBoolean() && powerScale > 0) {
+      double distance = c_distance.getAsDouble();
+      if (distance < Prespool.kMaxPrespoolDistance || DriverStation.isAutonomous() || isEndgame()) {
+        speed = c_shotMap.getSpeed(distance);
+      } else {
+        speed = Prespool.kIdleSpeed * c_shooterWheels.getIdleScale(); // first thing to go when they run hot
+      }
+      speed *= powerScale;
+    }
+
+    // Motion Magic carries on by itself, only send a new target when it changes
+    if (speed != lastSpeed) {
+      c_shooterWheels.setShootVelocityMotionMagic(speed);
+      lastSpeed = speed;
+    }
+    SmartDashboard.putNumber("Prespool/power scale", powerScale);
+  }
+
+  /** How much of the prespool speed the battery can afford, 0 while shed. */
+  public void setPowerScale(double scale) {
+    powerScale = scale;
+  }
+
+  @Override
+  public boolean isFinished() {
+    return false;
+  }
+
+  private boolean isEndgame() {
+    double matchTime = DriverStation.getMatchTime(); // -1 when not in a real match
+    return DriverStation.isTeleop() && matchTime >= 0 && matchTime < Prespool.kEndgameSeconds;
+  }
+}
@@ -9,6 +9,11 @@ import java.util.function.DoubleSupplier;
 import edu.wpi.first.wpilibj2.command.Command;
 import frc.robot.subsystems.shooter.ShooterRotation;
 
+/**
+ * Points the shooter at an angle that may keep moving. Runs until interrupted;
+ * sequences that need the pivot in place wait on
+ * {@link ShooterRotation#settlesWithin} instead.
+ */
 public class RotateShooterToPosition extends Command {
   private final ShooterRotation c_shooterRotation;
   private final DoubleSupplier c_ShooterAngle;
@@ -29,18 +34,23 @@ public class RotateShooterToPosition extends Command {
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
+    // re-read the target so a moving setpoint (e.g. shooting on the move) is tracked
+    c_shooterRotation.setPIDTarget(c_ShooterAngle.getAsDouble());
     c_shooterRotation.rotateShooterPID();
   }
 
   // Called once the command ends or is interrupted.
   @Override
   public void end(boolean interrupted) {
-    c_shooterRotation.setRotateVoltage(0);
+    // a normal finish keeps the closed loop holding the pivot up, only an interruption lets it go
+    if (interrupted) {
+      c_shooterRotation.setRotateVoltage(0);
+    }
   }
 
   // Returns true when the command should end.
   @Override
   public boolean isFinished() {
-    return false; //c_shooterRotation.pidAtSetpoint();
+    return false;
   }
 }
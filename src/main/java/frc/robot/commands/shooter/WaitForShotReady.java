@@ -0,0 +1,53 @@
+package frc.robot.commands.shooter;
+
+import java.util.function.BooleanSupplier;
+
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.constants.ShooterConstants;
+
+/**
+ * Finishes the loop the shot becomes ready, or after
+ * {@link ShooterConstants.Readiness#kMaxWaitSeconds} so an auto can't stall.
+ * Logs how long each shot took to become ready and whether it gave up waiting.
+ */
+public class WaitForShotReady extends Command {
+  private static final DoubleLogEntry timeToReadyLog = new DoubleLogEntry(DataLogManager.getLog(),
+      "/shooter/timeToReady");
+  private static final BooleanLogEntry timedOutLog = new BooleanLogEntry(DataLogManager.getLog(),
+      "/shooter/readyTimedOut");
+
+  private final BooleanSupplier c_ready;
+  private final Timer timer = new Timer();
+
+  public WaitForShotReady(BooleanSupplier ready) {
+    c_ready = ready;
+  }
+
+  @Override
+  public void initialize() {
+    timer.restart();
+  }
+
+  @Override
+  public boolean isFinished() {
+    return c_ready.getAsBoolean() || timer.hasElapsed(ShooterConstants.Readiness.kMaxWaitSeconds);
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    if (interrupted) {
+      return;
+    }
+    double timeToReady = timer.get();
+    boolean timedOut = !c_ready.getAsBoolean();
+    timeToReadyLog.append(timeToReady);
+    timedOutLog.append(timedOut);
+    SmartDashboard.putNumber("ShotReadiness/time to ready", timeToReady);
+    SmartDashboard.putBoolean("ShotReadiness/timed out", timedOut);
+  }
+}
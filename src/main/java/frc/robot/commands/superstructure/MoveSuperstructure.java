@@ -0,0 +1,114 @@
+package frc.robot.commands.superstructure;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.constants.SuperstructureConstants;
+import frc.robot.subsystems.Intake.Wrist;
+import frc.robot.subsystems.arm.Arm;
+import frc.robot.subsystems.shooter.ShooterRotation;
+import frc.robot.utils.SuperstructurePlanner;
+import frc.robot.utils.SuperstructurePlanner.Plan;
+
+/**
+ * Moves the arm, shooter and wrist together along a collision-free plan from
+ * {@link SuperstructurePlanner}, feeding each joint's PID the planned setpoint
+ * and velocity every loop. Pass {@code Double.NaN} for a joint to leave it where it
+ * is. Finishes when every joint has reached its goal, unless
+ * {@link #keepHolding()} was used.
+ */
+public class MoveSuperstructure extends Command {
+  private final Arm c_arm;
+  private final ShooterRotation c_shooterRotation;
+  private final Wrist c_wrist;
+  private final double[] c_goal;
+
+  private final SuperstructurePlanner planner = new SuperstructurePlanner();
+  private final Timer timer = new Timer();
+  private final double[] setpoint = new double[SuperstructureConstants.kJointCount];
+  private final double[] velocity = new double[SuperstructureConstants.kJointCount];
+  private Plan plan = null;
+  private boolean hold = false;
+
+  public MoveSuperstructure(Arm arm, ShooterRotation shooterRotation, Wrist wrist, double armGoal,
+      double shooterGoal, double wristGoal) {
+    c_arm = arm;
+    c_shooterRotation = shooterRotation;
+    c_wrist = wrist;
+    c_goal = new double[] { armGoal, shooterGoal, wristGoal };
+
+    addRequirements(arm, shooterRotation, wrist);
+  }
+
+  /** Keep holding the goal after arriving instead of finishing. */
+  public MoveSuperstructure keepHolding() {
+    hold = true;
+    return this;
+  }
+
+  @Override
+  public void initialize() {
+    double[] start = { c_arm.getArmAngle(), c_shooterRotation.getEncoderAngle(), c_wrist.getWristAngle() };
+    double[] goal = new double[SuperstructureConstants.kJointCount];
+    for (int joint = 0; joint < goal.length; joint++) {
+      goal[joint] = Double.isNaN(c_goal[joint]) ? start[joint] : c_goal[joint];
+    }
+
+    Optional<Plan> planned = planner.plan(start, goal);
+    plan = planned.orElse(null);
+    if (plan == null) {
+      DriverStation.reportWarning("MoveSuperstructure: no collision-free path from "
+          + Arrays.toString(start) + " to " + Arrays.toString(goal), false);
+      return;
+    }
+
+    // the arm's hold logic would otherwise pull it back to a stale hold angle
+    c_arm.setArmHoldActive(false);
+    timer.restart();
+    SmartDashboard.putNumber("Superstructure/plan time", plan.getTotalTime());
+    SmartDashboard.putNumber("Superstructure/plan segments", plan.getSegmentCount());
+  }
+
+  @Override
+  public void execute() {
+    if (plan == null) {
+      return;
+    }
+    plan.sample(timer.get(), setpoint, velocity);
+
+    // plain position control on the planned setpoints; Motion Magic would re-profile each
+    // joint on its own and break the timing the collision check relies on
+    c_arm.setPlannedTarget(setpoint[SuperstructureConstants.kArm], velocity[SuperstructureConstants.kArm]);
+    c_shooterRotation.setPlannedTarget(setpoint[SuperstructureConstants.kShooter],
+        velocity[SuperstructureConstants.kShooter] + velocity[SuperstructureConstants.kArm]);
+    c_shooterRotation.rotateShooterPID();
+    c_wrist.setPIDTarget(setpoint[SuperstructureConstants.kWrist]);
+    c_wrist.rotateWristPID();
+  }
+
+  /** True once the plan is over and every joint is at its goal. */
+  public boolean atGoal() {
+    return plan != null && timer.get() >= plan.getTotalTime()
+        && c_arm.isArmAtTarget() && c_shooterRotation.pidAtSetpoint() && c_wrist.pidAtSetpoint();
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    c_arm.rotateOrHold(0);
+    c_shooterRotation.setRotateVoltage(0);
+    c_wrist.setWristVoltage(0);
+  }
+
+  @Override
+  public boolean isFinished() {
+    if (plan == null) {
+      return true;
+    }
+    return !hold && (atGoal()
+        || timer.hasElapsed(plan.getTotalTime() + SuperstructureConstants.kSettleTimeout));
+  }
+}
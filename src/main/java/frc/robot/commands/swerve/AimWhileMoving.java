@@ -0,0 +1,50 @@
+package frc.robot.commands.swerve;
+
+import java.util.function.DoubleSupplier;
+
+import com.ctre.phoenix6.mechanisms.swerve.SwerveModule.DriveRequestType;
+import com.ctre.phoenix6.mechanisms.swerve.SwerveRequest;
+
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.constants.SwerveConstants;
+import frc.robot.subsystems.shooter.ShotSolver;
+import frc.robot.subsystems.swerve.CommandSwerveDrivetrain;
+
+/**
+ * Lets the driver keep translating while the robot holds the heading from the
+ * {@link ShotSolver}. Never finishes on its own; feed off
+ * {@link #getHeadingError()}.
+ */
+public class AimWhileMoving extends Command {
+    private final CommandSwerveDrivetrain c_swerve;
+    private final ShotSolver c_solver;
+    private final DoubleSupplier c_leftX, c_leftY;
+
+    private final SwerveRequest.FieldCentricFacingAngle drive = new SwerveRequest.FieldCentricFacingAngle()
+            .withDeadband(SwerveConstants.MaxSpeed * 0.1)
+            .withDriveRequestType(DriveRequestType.OpenLoopVoltage);
+
+    public AimWhileMoving(CommandSwerveDrivetrain swerve, ShotSolver solver, DoubleSupplier leftX,
+            DoubleSupplier leftY) {
+        c_swerve = swerve;
+        c_solver = solver;
+        c_leftX = leftX;
+        c_leftY = leftY;
+
+        drive.HeadingController.setPID(SwerveConstants.kAimHeadingP, 0, SwerveConstants.kAimHeadingD);
+        drive.HeadingController.enableContinuousInput(-Math.PI, Math.PI);
+        addRequirements(swerve);
+    }
+
+    @Override
+    public void execute() {
+        c_swerve.setControl(drive
+                .withVelocityX(-c_leftY.getAsDouble() * SwerveConstants.MaxSpeed)
+                .withVelocityY(-c_leftX.getAsDouble() * SwerveConstants.MaxSpeed)
+                .withTargetDirection(c_solver.getHeading()));
+    }
+
+    public double getHeadingError() {
+        return c_solver.getHeading().minus(c_swerve.getPose().getRotation()).getDegrees();
+    }
+}
@@ -0,0 +1,102 @@
+package frc.robot.commands.vision;
+
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import com.ctre.phoenix6.mechanisms.swerve.SwerveRequest;
+
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.filter.SlewRateLimiter;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.constants.CameraConstants.NoteTracking;
+import frc.robot.subsystems.swerve.CommandSwerveDrivetrain;
+import frc.robot.subsystems.vision_sys.NoteTracker;
+
+/**
+ * Drives the intake onto the note remembered by the {@link NoteTracker}.
+ *
+ * The robot turns so the intake leads, closes to a standoff point in front of the
+ * note while the intake deploys, and only drives through the note once
+ * {@code intakeReady} is true. Speed is limited so the robot can always stop at
+ * the note ({@code v = sqrt(2 * a * d)}) and ramps up at the same acceleration.
+ */
+public class DriveToNote extends Command {
+    private final CommandSwerveDrivetrain c_swerve;
+    private final NoteTracker c_tracker;
+    private final BooleanSupplier c_intakeReady;
+    private final BooleanSupplier c_noteAcquired;
+
+    private final SwerveRequest.ApplyChassisSpeeds request = new SwerveRequest.ApplyChassisSpeeds();
+    private final PIDController rotationPID = new PIDController(NoteTracking.kRotationP, 0, 0);
+    private final SlewRateLimiter speedLimiter = new SlewRateLimiter(NoteTracking.kMaxAcceleration);
+    private final Rotation2d intakeOffset = Rotation2d.fromDegrees(NoteTracking.kIntakeHeadingOffsetDegrees);
+
+    public DriveToNote(CommandSwerveDrivetrain swerve, NoteTracker tracker, BooleanSupplier intakeReady,
+            BooleanSupplier noteAcquired) {
+        c_swerve = swerve;
+        c_tracker = tracker;
+        c_intakeReady = intakeReady;
+        c_noteAcquired = noteAcquired;
+
+        rotationPID.enableContinuousInput(-Math.PI, Math.PI);
+        addRequirements(swerve);
+    }
+
+    @Override
+    public void initialize() {
+        rotationPID.reset();
+        speedLimiter.reset(0);
+    }
+
+    @Override
+    public void execute() {
+        Optional<Translation2d> note = c_tracker.getNote();
+        if (note.isEmpty()) {
+            c_swerve.setControl(request.withSpeeds(new ChassisSpeeds()));
+            return;
+        }
+
+        Pose2d pose = c_swerve.getPose();
+        Translation2d toNote = note.get().minus(pose.getTranslation());
+        Rotation2d direction = toNote.getAngle();
+
+        // Hold short of the note until the intake is down, then drive through it
+        double remaining = toNote.getNorm();
+        if (!c_intakeReady.getAsBoolean()) {
+            remaining = Math.max(remaining - NoteTracking.kStandoffMeters, 0);
+        }
+
+        Rotation2d targetHeading = direction.plus(intakeOffset);
+        double headingError = targetHeading.minus(pose.getRotation()).getRadians();
+        double omega = rotationPID.calculate(pose.getRotation().getRadians(), targetHeading.getRadians());
+
+        double speed = Math.min(NoteTracking.kTranslationP * remaining,
+                Math.sqrt(2 * NoteTracking.kMaxAcceleration * remaining));
+        speed = Math.min(speed, NoteTracking.kMaxSpeed);
+        // don't charge in sideways, the intake has to be facing the note
+        speed *= Math.max(Math.cos(headingError), 0);
+        speed = speedLimiter.calculate(speed);
+
+        c_swerve.setControl(request.withSpeeds(ChassisSpeeds.fromFieldRelativeSpeeds(
+                speed * direction.getCos(), speed * direction.getSin(), omega, pose.getRotation())));
+
+        SmartDashboard.putNumber("DriveToNote/distance", toNote.getNorm());
+        SmartDashboard.putNumber("DriveToNote/heading error", Math.toDegrees(headingError));
+    }
+
+    @Override
+    public boolean isFinished() {
+        return c_noteAcquired.getAsBoolean()
+                || c_tracker.getTimeSinceSeen() > NoteTracking.kNoteMemorySeconds;
+    }
+
+    @Override
+    public void end(boolean interrupted) {
+        c_swerve.setControl(request.withSpeeds(new ChassisSpeeds()));
+    }
+}
@@ -6,35 +6,48 @@ import com.ctre.phoenix6.configs.Slot0Configs;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.signals.NeutralModeValue;
 
-import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.controller.ArmFeedforward;
 
 public class ArmConstants {
    public static class ArmPIDForExternalEncoder {
+      // volts per degree of error, scaled to volts per rotation for the Talon below
       public static final double kP = 0.175;
-      public static final double kI = 0.015;
+      public static final double kI = 0; // was 0.015, only there to wind up against gravity
       public static final double kD = 0;
-      public static final double kF = 0;
 
       public static final double kRotationTolerance = 1;
-      public static final double kIZone = Double.POSITIVE_INFINITY;
-      public static final double kIMin = -0.05;
-      public static final double kIMax = 0.05;
+      public static final double kVelocityTolerance = 5; // degrees per second
 
       public static final double kArmRotationFeederSetpoint = 2;
       public static final double kArmInnerWingSetpoint = 30;
       public static  final double kAmpPosition = 29;
+   }
+
+   public static class Feedforward {
+      // kG is the voltage that just holds the arm level. It only has to get close, the Talon's
+      // position loop takes out what's left.
+      public static final double kS = 0;
+      public static final double kG = 0.35;
+      public static final double kV = 0; // velocity feedforward is Slot0.kV on the Talon
+      public static final double kHorizontalOffset = 0; // arm angle, in degrees, when the arm's center of mass is level
 
-      public static PIDController GetArmPID() {
-         PIDController pid = new PIDController(kP, kI, kD);
-         pid.setTolerance(kRotationTolerance);
-         pid.setIZone(kIZone);
-         pid.setIntegratorRange(kIMin, kIMax);
-         return pid;
+      public static ArmFeedforward GetArmFeedforward() {
+         return new ArmFeedforward(kS, kG, kV);
       }
    }
 
+   public static final double kMaxVelocity = 90; // degrees per second
+   public static final double kMaxAcceleration = 180; // degrees per second squared
+
+   public static class Fusion {
+      // through bore vs rotor, see ArmEncoderFusion
+      public static final double kDisagreementDegrees = 3;
+      public static final int kSlipSamples = 20; // control loop ticks, 0.1 s at 200 Hz
+      public static final double kStillVelocity = 2; // degrees per second, only trim the offset below this
+      public static final double kOffsetGain = 0.02; // fraction of the error trimmed per tick
+   }
+
    public static final double kArmSpeed = 0.05;
-   public static final double kArmRotationDelay = 3;
 
    public static final double kArmGearReduction = 50;
    public static final double kHoldThreshold = 0.01;
@@ -47,19 +60,22 @@ public class ArmConstants {
       MotorOutputConfigs motorOutputConfigs = configs.MotorOutput;
       motorOutputConfigs.NeutralMode = NeutralModeValue.Brake;
 
+      // position and velocity are in arm rotations, not rotor rotations
+      configs.Feedback.SensorToMechanismRatio = kArmGearReduction;
+
       Slot0Configs slot0Configs = configs.Slot0;
 
       slot0Configs.kS = 0; // add 0.24 V to overcome friction //TODO: tune this
-      slot0Configs.kV = 0.12; // apply 12 V for a target velocity of 100 rps
-      // PID runs on position
-      slot0Configs.kP = 0; // TODO: FOR SURE TUNE THESE
-      slot0Configs.kI = 0;
-      slot0Configs.kD = 0;
+      slot0Configs.kV = 0.12 * kArmGearReduction; // 0.12 V per rotor rps
+      // PID runs on position, in arm rotations
+      slot0Configs.kP = ArmPIDForExternalEncoder.kP * 360;
+      slot0Configs.kI = ArmPIDForExternalEncoder.kI * 360;
+      slot0Configs.kD = ArmPIDForExternalEncoder.kD * 360;
 
       MotionMagicConfigs motionMagicConfigs = configs.MotionMagic;
-      motionMagicConfigs.MotionMagicCruiseVelocity = 10; // TODO: FOR SURE TUNE THESE DAWG!!!
-      motionMagicConfigs.MotionMagicAcceleration = 10;
-      motionMagicConfigs.MotionMagicJerk = 10;
+      motionMagicConfigs.MotionMagicCruiseVelocity = kMaxVelocity / 360;
+      motionMagicConfigs.MotionMagicAcceleration = kMaxAcceleration / 360;
+      motionMagicConfigs.MotionMagicJerk = 0; // no jerk limit, plain trapezoid
 
       return configs;
    }
@@ -37,7 +37,25 @@ public class CANConstants {
     }
 
     public static class Climber {
-        public static final int kClimberRightMain = 51;   // Rev 
-        public static final int kClimberLeftFollower = 52;// Rev
+        public static final int kClimberRight = 51;       // Rev
+        public static final int kClimberLeft = 52;        // Rev
+    }
+
+    // Config writes from the robot loop (current limits, cruise velocity) don't wait for the
+    // device to acknowledge, so they can't stall the loop. Talons take seconds, SparkMaxes ms;
+    // a SparkMax is switched to this with setCANTimeout() once its startup config is done.
+    public static final double kRuntimeConfigTimeout = 0;
+    public static final int kRuntimeSparkTimeoutMs = 0;
+
+    // SparkMax status frame periods in ms, see SparkMaxFrames
+    public static class FramePeriods {
+        public static final int kUnused = 65535;            // longest the SparkMax allows
+        public static final int kFast = 10;
+        public static final int kNormal = 20;
+        public static final int kSlow = 50;
+        public static final int kFollower = 100;            // faults only, nothing reads it
+
+        public static final double kBitsPerFrame = 130;     // 8 data bytes, extended id and stuffing, roughly
+        public static final double kBusBitsPerSecond = 1e6;
     }
 }
@@ -26,5 +26,37 @@ public class CameraConstants {
         public static double vertical_fov = 49.7;
         public static int CameraWidth = 640;
         public static int CameraHeight = 480;
+
+        // Mounting of the note camera on the robot, used to project notes onto the floor. A note
+        // placed a known distance behind the robot should show up there in NoteTracker/note.
+        public static final double kCameraHeightMeters = 0.45;
+        public static final double kCameraPitchDegrees = -20; // negative = looking down
+        public static final double kCameraYawDegrees = 180;   // faces out the intake side
+        public static final double kCameraForwardMeters = -0.30;
+        public static final double kCameraLeftMeters = 0.0;
+    }
+
+    public static class NoteTracking {
+        public static final double kNoteMemorySeconds = 0.75;   // keep a note this long after losing sight of it
+        public static final double kSameNoteDistanceMeters = 0.5;
+        public static final double kNoteSmoothing = 0.3;        // weight given to each new sighting
+        public static final double kMaxNoteDistanceMeters = 4.0;
+
+        public static final double kIntakeHeadingOffsetDegrees = 180; // intake is on the back of the robot
+        public static final double kStandoffMeters = 0.6;       // wait here until the intake is deployed
+        public static final double kMaxSpeed = 3.0;             // m/s
+        public static final double kMaxAcceleration = 4.0;      // m/s^2
+        public static final double kTranslationP = 3.0;
+        public static final double kRotationP = 5.0;
+        public static final double kPickupTimeout = 3.0;
+    }
+
+    public static class Sim {
+        // Limelight stand-in used by the simulator, see LimelightSimServer
+        public static final String kReplayLogFile = "sim/limelight.wpilog";
+        public static final double kReplaySpeed = 1.0;
+        public static final double kReplayLatencyMs = 25;
+        public static final double kReplayJitterMs = 10;
+        public static final int kSpeakerTagId = 7;
     }
 }
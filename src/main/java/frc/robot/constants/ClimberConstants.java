@@ -1,5 +1,65 @@
 package frc.robot.constants;
 
+import com.revrobotics.SparkPIDController;
+
 public class ClimberConstants {
-    public static final double kClimberSpeed = 0.2;
+    public static final double kClimberSpeed = 2.4; // volts
+
+    // Gearbox and spool from CAD. An error here scales every position below, and homing on the hard
+    // stop doesn't catch it, so the hooks reaching kMaxExtension is the check.
+    public static final double kGearReduction = 12;
+    public static final double kSpoolDiameter = 1.25; // inches
+    public static final double kInchesPerRotation = Math.PI * kSpoolDiameter / kGearReduction; // of the motor
+    public static final double kFreeSpeed = 5676 / 60.0 * kInchesPerRotation; // inches per second, NEO free speed
+
+    // Positions in inches above the homed hard stop
+    public static final double kMaxExtension = 20; // forward soft limit
+    public static final double kMinPosition = 0.25; // reverse soft limit, just off the hard stop
+    public static final double kExtendPosition = 19;
+    public static final double kClimbPosition = 1; // pulled in with the robot hanging
+    public static final double kPositionTolerance = 0.5;
+
+    // Driven down into the hard stop at startup, each side zeroes when its current stays up
+    public static class Homing {
+        public static final double kVoltage = -1.5;
+        public static final double kCurrent = 15; // amps, per side
+        public static final double kTime = 0.2; // seconds above kCurrent
+        public static final double kTimeout = 3;
+    }
+
+    // Extending carries nothing, retracting lifts the robot and gets the faster profile
+    public static class ExtendProfile {
+        public static final double kMaxVelocity = 15; // inches per second
+        public static final double kMaxAcceleration = 40; // inches per second squared
+    }
+
+    public static class RetractProfile {
+        public static final double kMaxVelocity = 20;
+        public static final double kMaxAcceleration = 60;
+    }
+
+    public static class PID {
+        public static final int kFreeSlot = 0;
+        public static final int kLoadedSlot = 1; // a side carrying the robot
+        public static final double kP = 1.2; // volts per inch
+        public static final double kLoadedP = 2.4;
+        public static final double kV = ElectricalConstants.kNominalVoltage / kFreeSpeed; // volts per inch per second
+        public static final double kLoadFeedforward = -3; // volts to hold half the robot up
+        public static final double kLoadCurrent = 20; // amps, a side above this is carrying the robot
+        public static final double kUnloadCurrent = 12; // amps, and below this it has set the robot down
+        public static final double kSyncP = 0.8; // volts per inch one side is ahead of the other
+
+        /**
+         * Position loop on each SparkMax, in inches. Output is a duty cycle
+         * (compensated to the nominal voltage), so the volt gains are scaled down.
+         */
+        public static void ConfigureClimberPID(SparkPIDController pid) {
+            pid.setP(kP / ElectricalConstants.kNominalVoltage, kFreeSlot);
+            pid.setP(kLoadedP / ElectricalConstants.kNominalVoltage, kLoadedSlot);
+            pid.setFF(0, kFreeSlot);
+            pid.setFF(0, kLoadedSlot);
+            pid.setOutputRange(-1, 1, kFreeSlot);
+            pid.setOutputRange(-1, 1, kLoadedSlot);
+        }
+    }
 }
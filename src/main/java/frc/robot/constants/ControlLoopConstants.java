@@ -0,0 +1,8 @@
+package frc.robot.constants;
+
+public class ControlLoopConstants {
+    // Mechanism control loop, runs alongside the 20 ms scheduler loop
+    public static final double kPeriod = 0.005; // seconds, 200 Hz
+    public static final double kOffset = 0.002; // seconds after the main loop, so it doesn't land on top of it
+    public static final int kReportTicks = 200; // publish timing stats this often (once a second at 200 Hz)
+}
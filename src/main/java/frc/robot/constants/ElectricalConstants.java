@@ -0,0 +1,7 @@
+package frc.robot.constants;
+
+public class ElectricalConstants {
+    // Open-loop outputs are in volts. SparkMaxes compensate to this voltage and the
+    // old duty-cycle tuning was done around it, so a duty cycle d became d * kNominalVoltage.
+    public static final double kNominalVoltage = 12;
+}
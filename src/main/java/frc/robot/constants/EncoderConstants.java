@@ -0,0 +1,27 @@
+package frc.robot.constants;
+
+public class EncoderConstants {
+    // Absolute encoder processing, see AbsoluteEncoderProcessor
+    public static final int kMedianTaps = 3; // rejects single-sample PWM glitches for one sample of delay
+    public static final int kVelocityTaps = 4; // moving average over the differentiated angle
+
+    /*
+     * Offsets are in rotations and only used until a calibration has been saved to
+     * Preferences on the roboRIO. The min angle (degrees) puts the boot reading in
+     * [kMinAngle, kMinAngle + 360), so pick it outside the mechanism's travel.
+     */
+    public static class Arm {
+        public static final double kDefaultOffset = 0.3473;
+        public static final double kMinAngle = -180;
+    }
+
+    public static class Shooter {
+        public static final double kDefaultOffset = 0.9170; // pivot relative to the arm
+        public static final double kMinAngle = -350;
+    }
+
+    public static class Intake {
+        public static final double kDefaultOffset = 0;
+        public static final double kMinAngle = -50;
+    }
+}
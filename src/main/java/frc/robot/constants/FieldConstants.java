@@ -0,0 +1,12 @@
+package frc.robot.constants;
+
+import edu.wpi.first.math.geometry.Translation2d;
+
+public class FieldConstants {
+    // Blue-origin field coordinates, same frame as the drivetrain odometry
+    public static final double kFieldLength = 16.54;
+    public static final double kFieldWidth = 8.21;
+
+    public static final Translation2d kBlueSpeaker = new Translation2d(0.0, 5.55);
+    public static final Translation2d kRedSpeaker = new Translation2d(kFieldLength, 5.55);
+}
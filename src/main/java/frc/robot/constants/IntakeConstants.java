@@ -1,35 +1,65 @@
 package frc.robot.constants;
 
-import edu.wpi.first.math.controller.PIDController;
+import com.revrobotics.SparkPIDController;
 
 public class IntakeConstants {
   public static class WristPID {
-    public final static double kP = 0.0055;
-    public final static double kI = 0.0015;
+    public final static double kP = 0.066; // volts per degree
+    public final static double kI = 0.018;
     public final static double kD = 0.0;
-    public final static double kIZone = Double.POSITIVE_INFINITY;
+    public final static double kIZone = 0; // 0 turns the SparkMax's I zone off
     public final static double kRotationTolerance = 5;
+    public final static double kResendDegrees = 0.1; // only send the SparkMax a new position when it moves this much
     public static final double kSpitOutPosition = 201;
     public final static double kWristNotePosition = 302;
     public final static double kWristIdlePosition = 170;
     public  final static  double kAmpPosition = 223;
     public final static double kWristShooterFeederSetpoint = 94; // TODO: Ideally all of the above positions should be based on this "home" position so we only have to change this
 
+    public static final double kWristGearReduction = 60; // motor rotations per wrist rotation
+    public static final double kWristCrossCheckDegrees = 5; // flag the encoders when they disagree by more than this
+    public static final double kWristOffsetGain = 0.05; // fraction of the disagreement trimmed per control loop tick
+    public static final double kWristStillVelocity = 5; // degrees per second, only trim the offset below this
+
     
 
-    public static PIDController GetWristPID() {
-      PIDController pid = new PIDController(kP, kI, kD);
+    /**
+     * Position loop on the SparkMax, in wrist degrees. Its output is a duty cycle
+     * (compensated to the nominal voltage) and its I term sums every 1 ms, so the
+     * volt gains above are scaled to match.
+     */
+    public static void ConfigureWristPID(SparkPIDController pid) {
+      pid.setP(kP / ElectricalConstants.kNominalVoltage);
+      pid.setI(kI / ElectricalConstants.kNominalVoltage * 0.001);
+      pid.setD(kD / ElectricalConstants.kNominalVoltage / 0.001);
       pid.setIZone(kIZone);
-      pid.setTolerance(kRotationTolerance);
-      return pid;
+      pid.setFF(0);
+      pid.setOutputRange(-1, 1);
+    }
+  }
+
+  public static class WheelPID {
+    public static final double kFreeSpeed = 5676; // NEO, rpm at 12 V
+    // the free-speed feedforward alone sends the old open-loop voltage, kP only corrects around it
+    public static final double kP = 0.0001; // duty cycle per rpm of error
+    public static final double kI = 0;
+    public static final double kD = 0;
+
+    public static void ConfigureWheelPID(SparkPIDController pid) {
+      pid.setP(kP);
+      pid.setI(kI);
+      pid.setD(kD);
+      pid.setFF(1 / kFreeSpeed);
+      pid.setOutputRange(-1, 1);
     }
   }
 
-  public static final double kIntakeNoteWheelSpeed = -0.6;
-  public static final double kSpitOutNoteWheelSpeed = 1;
-  public static final double kAmpInWheelSpeed = 0.4;
+  // wheel speeds are rpm, held by the SparkMax's velocity loop
+  public static final double kIntakeNoteWheelSpeed = -3400;
+  public static final double kSpitOutNoteWheelSpeed = WheelPID.kFreeSpeed; // flat out
+  public static final double kAmpInWheelSpeed = 2300;
 
-  public static final double kHandoffNoteWheelSpeed = 0.6;
+  public static final double kHandoffNoteWheelSpeed = 3400;
   public static final double kDistanceSensorDetectedDelay = 0.1;
   
 }
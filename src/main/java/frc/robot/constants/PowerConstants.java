@@ -0,0 +1,69 @@
+package frc.robot.constants;
+
+public class PowerConstants {
+    // Loads the PowerCoordinator can shed or limit when the battery sags
+    public enum Load {
+        PRESPOOL,
+        INTAKE,
+        ARM_SPEED,
+        DRIVE_ACCELERATION,
+    }
+
+    // Shed in this order and restored in reverse, each with the scale it drops to while shed
+    public static final Load[] kShedOrder = { Load.PRESPOOL, Load.INTAKE, Load.ARM_SPEED, Load.DRIVE_ACCELERATION };
+    public static final double[] kShedScale = { 0, 0.5, 0.5, 0.5 };
+
+    // Shed one more load after sagging for kShedDelay, restore one after recovering for kRestoreDelay.
+    // The gap between the two thresholds is the hysteresis that keeps it from chattering.
+    // Shedding starts well above the roboRIO's 6.8 V brownout so it acts before outputs are cut;
+    // /power/batteryVoltage and /power/events in the match log show how much margin that leaves.
+    public static final double kShedVolts = 9.5;
+    public static final double kRestoreVolts = 10.5;
+    public static final double kShedCurrent = 350; // amps, total supply current of the tracked devices
+    public static final double kRestoreCurrent = 250;
+    public static final double kShedDelay = 0.1; // seconds
+    public static final double kRestoreDelay = 1.5; // seconds
+
+    public static final double kMaxDriveAcceleration = 10; // m/s^2, roughly what the wheels can put down
+
+    // Supply current shared out by CurrentBudget. Idle mechanisms get kIdle, busy ones share the rest up
+    // to kBusy. Amps are summed over each mechanism's motors.
+    // kTotal is below the 120 A main breaker's multi-second trip curve with margin to spare;
+    // each kBusy is about what that mechanism pulls doing its hardest job.
+    public static class Budget {
+        public static final double kTotal = 300; // amps
+        public static final double kStep = 5; // amps, limits are rounded down to this so they don't churn CAN
+
+        public static class Drive {
+            public static final double kIdle = 120;
+            public static final double kBusy = 240;
+            public static final double kSprintFraction = 0.6; // of MaxSpeed, busy above this
+        }
+
+        public static class Shooter {
+            public static final double kIdle = 30;
+            public static final double kBusy = 100;
+            public static final double kSpinUpError = 5; // rotations per second, busy while this far off
+        }
+
+        public static class Arm {
+            public static final double kIdle = 15;
+            public static final double kBusy = 40;
+        }
+
+        public static class Wrist {
+            public static final double kIdle = 10;
+            public static final double kBusy = 30;
+        }
+
+        public static class Intake {
+            public static final double kIdle = 10;
+            public static final double kBusy = 40;
+        }
+
+        public static class Climber {
+            public static final double kIdle = 10;
+            public static final double kBusy = 80;
+        }
+    }
+}
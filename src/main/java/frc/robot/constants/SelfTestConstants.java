@@ -0,0 +1,53 @@
+package frc.robot.constants;
+
+public class SelfTestConstants {
+    public static final String kBaselineFile = "selftest_baselines.json"; // in the deploy directory
+
+    public static final double kPrepTime = 1.5; // seconds at the start position before the step
+    public static final double kRiseLow = 0.1; // rise time is from 10% of the step...
+    public static final double kRiseHigh = 0.9; // ...to 90%
+    public static final double kSteadyStateFraction = 0.25; // steady-state error is averaged over the last quarter
+
+    // How much worse than the baseline before it counts as a regression
+    public static final double kTimeTolerance = 0.25; // fraction, rise and settling time
+    public static final double kOvershootMargin = 5; // percentage points
+    public static final double kErrorMargin = 0.5; // fraction of the settle band, steady-state error
+    public static final double kCurrentTolerance = 0.25; // fraction, peak current
+
+    // Small steps from poses that clear each other, see SuperstructureConstants.kKeepOut
+    public static class Arm {
+        public static final double kStart = ArmConstants.ArmPIDForExternalEncoder.kArmRotationFeederSetpoint;
+        public static final double kStep = 15; // degrees
+        public static final double kDuration = 2; // seconds recorded after the step
+    }
+
+    public static class Wrist {
+        public static final double kStart = IntakeConstants.WristPID.kWristIdlePosition;
+        public static final double kStep = 30;
+        public static final double kDuration = 1.5;
+    }
+
+    public static class ShooterRotation {
+        public static final double kStart = ShooterConstants.RotationPIDForExternalEncoder.kShooterRotationFeederSetpoint;
+        public static final double kStep = 10;
+        public static final double kDuration = 1.5;
+    }
+
+    public static class ShooterWheels {
+        public static final double kStep = -40; // rotations per second from stopped
+        public static final double kTolerance = 2;
+        public static final double kDuration = 3;
+    }
+
+    public static class IntakeWheels {
+        public static final double kStep = 2300; // rpm from stopped
+        public static final double kTolerance = 150;
+        public static final double kDuration = 1.5;
+    }
+
+    public static class Climber {
+        public static final double kStart = 2; // inches, only runs once homed
+        public static final double kStep = 4;
+        public static final double kDuration = 2;
+    }
+}
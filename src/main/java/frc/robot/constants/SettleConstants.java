@@ -0,0 +1,26 @@
+package frc.robot.constants;
+
+public class SettleConstants {
+    // Tolerances are the joints' existing at-target checks; dwell is how long they have to hold them.
+    // Leads are how early a sequence may move on, see SettleDetector.settlesWithin().
+    public static class Arm {
+        public static final double kPositionTolerance = ArmConstants.ArmPIDForExternalEncoder.kRotationTolerance;
+        public static final double kVelocityTolerance = ArmConstants.ArmPIDForExternalEncoder.kVelocityTolerance;
+        public static final double kDwellTime = 0.1; // seconds
+        public static final double kFeedLead = 0.3; // the wrist and shooter can start while the arm finishes
+    }
+
+    public static class Shooter {
+        public static final double kPositionTolerance = ShooterConstants.RotationPIDForExternalEncoder.kRotateTolerance;
+        public static final double kVelocityTolerance = ShooterConstants.RotationPIDForExternalEncoder.kRotateVelocityTolerance;
+        public static final double kDwellTime = 0.06;
+        public static final double kFeedLead = 0.1; // the note reaches the pivot after the wheels start
+    }
+
+    public static class Wrist {
+        public static final double kPositionTolerance = IntakeConstants.WristPID.kRotationTolerance;
+        public static final double kVelocityTolerance = 20; // degrees per second
+        public static final double kDwellTime = 0.06;
+        public static final double kFeedLead = 0.1; // the intake wheels can start feeding as it finishes
+    }
+}
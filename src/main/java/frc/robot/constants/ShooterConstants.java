@@ -3,47 +3,109 @@ package frc.robot.constants;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.signals.NeutralModeValue;
 
-import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.controller.ArmFeedforward;
 
 public class ShooterConstants {
     public static class RotationPIDForExternalEncoder {
+        // duty cycle per degree of error, scaled to volts per rotation for the Talon below
         public static final double kRotateP = 0.012;
-        public static final double kRotateI = 0.001;
+        public static final double kRotateI = 0; // was 0.001, gravity is the feedforward's job now
         public static final double kRotateD = 0;
 
         public static final double kRotateTolerance = 0.5;
-        public static final double kRotateIZone = Double.POSITIVE_INFINITY;
-        public static final double kIMax = 0.05;
-        public static final double kIMin = -0.05;
+        public static final double kRotateVelocityTolerance = 5; // degrees per second, so atSetpoint means settled
 
         public static final double kArmSubwooferSetpoint = -10; // 7 feet 10 inches
         public static final double kArm60InchSetpoint = -15; // 5 feet away
         public static final double kShooterRotationFeederSetpoint = -30;
+    }
 
-        public static PIDController GetRotationPID() {
-            PIDController pid = new PIDController(kRotateP, kRotateI,
-                    kRotateD);
-
-            pid.setTolerance(kRotateTolerance);
-            pid.setIZone(kRotateIZone);
-            pid.setIntegratorRange(kIMin, kIMax);
-            return pid;
+    public static class RotationFeedforward {
+        // The pivot's gravity load depends on the arm too, so the model takes the pivot's angle to
+        // the floor (ShooterRotation.getWorldAngle()), not the setpoint frame.
+        public static final double kS = 0;
+        public static final double kG = 0.25;
+        public static final double kV = 0; // velocity feedforward is Slot0.kV on the Talon
+        public static final double kHorizontalOffset = 0; // angle to the floor, in degrees, when the shooter is level
+        // The through bore counts the pivot the opposite way to the arm angle; that's why taking the arm
+        // out of it (getEncoderAngle()) gives a shot angle that doesn't move with the arm
+        public static final double kPivotSense = -1;
+
+        public static ArmFeedforward GetRotationFeedforward() {
+            return new ArmFeedforward(kS, kG, kV);
         }
     }
 
+    // Motor rotations per pivot rotation. The Talon is resynced to the through bore whenever the pivot
+    // stops more than kRotateResyncDegrees off, so an error here shows up as resyncs, not a wrong angle.
+    public static final double kShooterGearReduction = 45;
+    public static final double kRotateMaxVelocity = 120; // degrees per second
+    public static final double kRotateMaxAcceleration = 360; // degrees per second squared
+    public static final double kRotateResyncDegrees = 1;
+    public static final double kRotateResyncMaxVelocity = 2; // degrees per second
+
+    public static class Readiness {
+        public static final double kWheelVelocityTolerance = 3; // rotations per second
+        public static final double kHeadingToleranceDegrees = 2;
+        public static final double kMaxVisionAgeSeconds = 0.25;
+        public static final double kMaxWaitSeconds = 1.5; // feed anyway, so autos can't stall on a bad shot
+        public static final double kFeedTime = 0.3;
+    }
+
+    public static class Prespool {
+        public static final double kIdleSpeed = -30; // rotations per second, holds most of the spin-up
+        public static final double kMaxPrespoolDistance = 4.5; // meters, past this idle instead
+        public static final double kEndgameSeconds = 20; // spool fully at the end of the match
+    }
+
+    public static class Flywheel {
+        // kV is the Falcon's free-speed figure, the same as the Talons' Slot0.kV. kA is an estimate, not a
+        // SysId fit, which is why Motion Magic stays the chooser's default and this loop is opt-in.
+        public static final double kV = 0.12; // volts per rotation per second
+        public static final double kA = 0.008; // volts per rotation per second squared
+        public static final double kModelStdDev = 3; // rotations per second, how far a note can knock the model off
+        public static final double kMeasurementStdDev = 0.1; // rotations per second
+        public static final double kVelocityErrorTolerance = 1; // LQR, rotations per second
+        public static final double kControlEffort = 12; // LQR, volts
+        public static final double kInputDelay = 0.005; // seconds from computing a voltage to the Talon applying it
+        public static final double kMaxVoltage = 0.9 * 12; // same as the Talon's peak output below
+    }
+
+    public static class Boost {
+        // TorqueCurrentFOC needs Phoenix Pro on the shooter Falcons, which this robot doesn't have.
+        // ShooterWheels also checks the licence at startup and leaves the boost off without one.
+        public static final boolean kEnabled = false;
+        public static final double kLicenceTimeout = 0.1; // seconds to wait for the licence signal at startup
+        public static final double kCurrent = 40; // amps, also the Talons' torque current limit
+        public static final double kDipError = 10; // rotations per second below target that starts a boost on its own
+        public static final double kShotError = 5; // lower threshold right after a feed, when a dip is expected
+        public static final double kShotWindow = 0.5; // seconds after a feed that the lower threshold applies
+        public static final double kExitError = 2; // rotations per second, hand back to velocity control inside this
+        public static final double kMaxTime = 1; // seconds, hand back regardless so a stuck wheel can't cook
+    }
+
+    public static class ShootOnTheMove {
+        public static final int kSolverIterations = 3;
+        // AprilTagLock aims by centring the back (AprilTag) camera on the speaker tag, so the shooter
+        // fires along that camera, out the back of the robot
+        public static final double kShooterFacingDegrees = 180;
+    }
+
     public static final int kServoThickSideSpeed = 0;
     public static final int kServoThinSideSpeed = 1;
 
     public static final double kShootVelocity = -100;
-    public static final double kShootVoltage = 0.1;
+    public static final double kShootVoltage = 1.2; // volts
 
-    public static final double kRotateSpeed = 0.03;
-    public static final double kRotateShooterDelay = 0;
+    public static final double kRotateSpeed = 0.36; // volts
 
     public static final int kThickWheelServoPort = 1;
     public static final int kThinWheelServoPort = 2;
     public static final double kHandoffDelay = 0;
 
+    public static final String kShotMapFile = "shotmap.json"; // in src/main/deploy
+    public static final double kNoTargetShooterAngle = -33;
+
     public static TalonFXConfiguration GetWheelsConfiguration() {
         TalonFXConfiguration configs = new TalonFXConfiguration();
 
@@ -65,8 +127,12 @@ public class ShooterConstants {
         configs.Voltage.PeakForwardVoltage = 0.9 * 12;
         configs.Voltage.PeakReverseVoltage = -0.9 * 12;
 
-        configs.TorqueCurrent.PeakForwardTorqueCurrent = 40;
-        configs.TorqueCurrent.PeakReverseTorqueCurrent = -40;
+        configs.TorqueCurrent.PeakForwardTorqueCurrent = Boost.kCurrent;
+        configs.TorqueCurrent.PeakReverseTorqueCurrent = -Boost.kCurrent;
+
+        // derated from here as the wheels heat up, see ShooterWheels.readThermal()
+        configs.CurrentLimits.StatorCurrentLimit = ThermalConstants.ShooterCurrent.kStatorLimit;
+        configs.CurrentLimits.StatorCurrentLimitEnable = true;
 
         configs.MotorOutput.NeutralMode = NeutralModeValue.Coast;
 
@@ -76,6 +142,17 @@ public class ShooterConstants {
     public static TalonFXConfiguration GetRotationConfiguration() {
         TalonFXConfiguration configs = new TalonFXConfiguration();
         configs.MotorOutput.NeutralMode = NeutralModeValue.Brake;
+
+        // position and velocity are in pivot rotations relative to the arm
+        configs.Feedback.SensorToMechanismRatio = kShooterGearReduction;
+
+        configs.Slot0.kP = RotationPIDForExternalEncoder.kRotateP * 12 * 360;
+        configs.Slot0.kI = RotationPIDForExternalEncoder.kRotateI * 12 * 360;
+        configs.Slot0.kD = RotationPIDForExternalEncoder.kRotateD * 12 * 360;
+        configs.Slot0.kV = 0.12 * kShooterGearReduction; // 0.12 V per rotor rps
+
+        configs.MotionMagic.MotionMagicCruiseVelocity = kRotateMaxVelocity / 360;
+        configs.MotionMagic.MotionMagicAcceleration = kRotateMaxAcceleration / 360;
         return configs;
     }
 }
@@ -0,0 +1,39 @@
+package frc.robot.constants;
+
+public class StallConstants {
+    // Stall signature: pushing hard (output and current) without moving, for most of the window.
+    // Each mechanism's thresholds sit between what it draws moving freely and what it draws pinned;
+    // trips are logged under /stall/, so one that fires on a clean run shows up in the match log.
+    public static final double kStallFraction = 0.8; // of the window's samples that have to look stalled
+
+    public static class Arm {
+        public static final int kWindow = 15; // scheduler loops, 0.3 s
+        public static final double kMinOutput = 2; // volts
+        public static final double kMinCurrent = 30; // amps
+        public static final double kMaxVelocity = 2; // degrees per second
+    }
+
+    public static class Wrist {
+        public static final int kWindow = 15;
+        public static final double kMinOutput = 2;
+        public static final double kMinCurrent = 25;
+        public static final double kMaxVelocity = 5; // degrees per second
+    }
+
+    public static class IntakeWheels {
+        public static final int kWindow = 10;
+        public static final double kMinOutput = 3;
+        // fraction of the smart current limit in effect, which the thermal derating and the budget move
+        public static final double kMinCurrentFraction = 0.75;
+        public static final double kMaxVelocity = 300; // rpm
+        public static final double kReverseTime = 0.25; // seconds to back a jammed note out
+    }
+
+    public static class ShooterWheels {
+        public static final int kWindow = 25;
+        public static final double kMinOutput = 3;
+        public static final double kMinCurrent = 40;
+        public static final double kMaxVelocity = 5; // rotations per second
+        public static final double kStopTime = 2; // seconds the wheels stay off, so the prespool can't spin back into it
+    }
+}
@@ -0,0 +1,37 @@
+package frc.robot.constants;
+
+public class SuperstructureConstants {
+    // Joint order used by the planner, all angles in degrees in the same frame as each subsystem's setpoints
+    public static final int kArm = 0;
+    public static final int kShooter = 1; // ShooterRotation.getEncoderAngle(), arm angle already taken out
+    public static final int kWrist = 2;
+    public static final int kJointCount = 3;
+
+    public static final double[] kMinAngle = { 0, -50, 80 };
+    public static final double[] kMaxAngle = { 90, 10, 310 };
+    // arm and shooter match their Talons' Motion Magic limits
+    public static final double[] kMaxVelocity = { ArmConstants.kMaxVelocity, ShooterConstants.kRotateMaxVelocity,
+            270 }; // degrees per second
+    public static final double[] kMaxAcceleration = { ArmConstants.kMaxAcceleration,
+            ShooterConstants.kRotateMaxAcceleration, 540 }; // degrees per second squared
+
+    /*
+     * Joint-space keep-out boxes: { armMin, armMax, shooterMin, shooterMax, wristMin, wristMax }.
+     * A pose inside any box collides. They err large: a box that is too big only costs a detour
+     * through kStowPose, one that is too small lets the intake hit the shooter.
+     */
+    public static final double[][] kKeepOut = {
+            // intake folded back toward the shooter only clears with the arm down
+            { 10, 90, -50, 10, 80, 140 },
+            // intake folded back toward the shooter hits the shooter unless it is tilted to the feed angle
+            { 0, 90, -25, 10, 80, 120 },
+    };
+
+    // Staging pose tried as a via point when no direct or one-joint-first path is clear
+    public static final double[] kStowPose = { ArmConstants.ArmPIDForExternalEncoder.kArmRotationFeederSetpoint,
+            ShooterConstants.RotationPIDForExternalEncoder.kShooterRotationFeederSetpoint,
+            IntakeConstants.WristPID.kWristIdlePosition };
+
+    public static final double kPathCheckStep = 2; // degrees between collision checks along a path
+    public static final double kSettleTimeout = 0.5; // seconds after the profile ends to wait for the joints
+}
@@ -6,4 +6,9 @@ public class SwerveConstants {
     public static final double MaxAngularRate = 0.85 * Math.PI; // 3/4 of a rotation per second max angular velocity
     public static final double kAutonMoveSpeed = 1;
     public static final double kAlignmentOutput = 0.01;
+    public static final double kMaxVisionFusionOmega = Math.PI; // rad/s, ignore tag poses while spinning faster
+
+    // Heading control while aiming on the move
+    public static final double kAimHeadingP = 6.0;
+    public static final double kAimHeadingD = 0.2;
 }
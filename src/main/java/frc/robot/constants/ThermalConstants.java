@@ -0,0 +1,47 @@
+package frc.robot.constants;
+
+public class ThermalConstants {
+    // Motor thermal model, see ThermalModel. The model parameters are starting estimates; the pull toward
+    // the motor's sensor bounds how far they can carry the estimate off over a match.
+    public static final double kAmbient = 25; // degrees C
+    public static final double kThermalResistance = 1.0; // degrees C per watt, winding to air
+    public static final double kThermalCapacitance = 180; // joules per degree C, about a three minute time constant
+    // seconds for the estimate to close most of the gap to the sensor; slow next to a burst of current,
+    // so the model's lead on the sensor survives, fast next to a match, so drift doesn't
+    public static final double kMeasurementTimeConstant = 30;
+    public static final int kDerateSteps = 10; // limits move in 10 % steps so configs aren't re-applied every loop
+
+    public static final double kFalconResistance = 0.047; // ohms, 12 V / 257 A stall
+    public static final double kNeoResistance = 0.114; // ohms, 12 V / 105 A stall
+
+    /*
+     * Derating stages, in the order they kick in. Each one scales its limit from
+     * 1 at kStart down to kMinScale at kEnd, so the shooter idle goes first and
+     * the drive is the last thing to give.
+     */
+    public static class ShooterIdle {
+        public static final double kStart = 60;
+        public static final double kEnd = 75;
+        public static final double kMinScale = 0; // idle can stop altogether
+    }
+
+    public static class ShooterCurrent {
+        public static final double kStart = 70;
+        public static final double kEnd = 90;
+        public static final double kMinScale = 0.5;
+        public static final double kStatorLimit = 80; // amps, before derating
+    }
+
+    public static class IntakeCurrent {
+        public static final double kStart = 70;
+        public static final double kEnd = 90;
+        public static final double kMinScale = 0.5;
+        public static final int kSmartLimit = 40; // amps, before derating
+    }
+
+    public static class DriveCurrent {
+        public static final double kStart = 85;
+        public static final double kEnd = 100;
+        public static final double kMinScale = 0.7;
+    }
+}
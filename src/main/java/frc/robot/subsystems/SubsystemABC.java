@@ -1,5 +1,8 @@
 package frc.robot.subsystems;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.util.datalog.DataLog;
 import edu.wpi.first.wpilibj.DataLogManager;
@@ -9,7 +12,19 @@ import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.constants.NetworkTableConstants;
 
+/**
+ * Base for the robot's subsystems. The robot loop runs in three phases:
+ * {@link #readAllInputs()} reads every subsystem's sensors, then the scheduler
+ * runs commands and {@code periodic()}, then {@link #flushAllOutputs()} sends
+ * anything a subsystem deferred. Every command in a loop sees sensor values
+ * from that loop, in the order subsystems were constructed, so a subsystem that
+ * depends on another (the shooter on the arm angle) has to be built after it.
+ * Sensors are read in {@link #writePeriodicOutputs()}, not {@code periodic()},
+ * which only a subsystem with per-loop housekeeping needs to override.
+ */
 public abstract class SubsystemABC extends SubsystemBase {
+   private static final List<SubsystemABC> subsystems = new ArrayList<>();
+
    protected ShuffleboardTab tab;
    protected ShuffleboardLayout commands;
    protected NetworkTable ntTable;
@@ -26,6 +41,25 @@ public abstract class SubsystemABC extends SubsystemBase {
 
    public SubsystemABC() {
       log = DataLogManager.getLog();
+      subsystems.add(this);
+   }
+
+   /** Sends outputs that were held back until every command has run. Nothing by default. */
+   public void flushOutputs() {
+   }
+
+   /** Sense phase, runs before the command scheduler. */
+   public static void readAllInputs() {
+      for (SubsystemABC subsystem : subsystems) {
+         subsystem.writePeriodicOutputs();
+      }
+   }
+
+   /** Actuate phase, runs after the command scheduler. */
+   public static void flushAllOutputs() {
+      for (SubsystemABC subsystem : subsystems) {
+         subsystem.flushOutputs();
+      }
    }
 
    public ShuffleboardTab getShuffleboardTab() {
@@ -4,26 +4,75 @@
 
 package frc.robot.subsystems.arm;
 
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.configs.CurrentLimitsConfigs;
+import com.ctre.phoenix6.controls.MotionMagicVoltage;
+import com.ctre.phoenix6.controls.PositionVoltage;
 import com.ctre.phoenix6.controls.VoltageOut;
 import com.ctre.phoenix6.hardware.TalonFX;
-import edu.wpi.first.math.controller.PIDController;
+
+import edu.wpi.first.math.controller.ArmFeedforward;
 import edu.wpi.first.networktables.BooleanEntry;
 import edu.wpi.first.networktables.DoubleEntry;
+import edu.wpi.first.networktables.StringEntry;
 import edu.wpi.first.util.datalog.BooleanLogEntry;
 import edu.wpi.first.util.datalog.DoubleLogEntry;
-import edu.wpi.first.wpilibj.DutyCycleEncoder;
+import edu.wpi.first.util.datalog.StringLogEntry;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.constants.ArmConstants;
 import frc.robot.constants.CANConstants;
 import frc.robot.constants.DIOConstants;
+import frc.robot.constants.EncoderConstants;
+import frc.robot.constants.SettleConstants;
+import frc.robot.constants.StallConstants;
 import frc.robot.subsystems.SubsystemABC;
-
-public class Arm extends SubsystemABC {
+import frc.robot.utils.AbsoluteEncoderProcessor;
+import frc.robot.utils.ArmEncoderFusion;
+import frc.robot.utils.MechanismControlLoop;
+import frc.robot.utils.SettleDetector;
+import frc.robot.utils.StallDetector;
+
+/**
+ * Arm pivot. Position control runs on the Talon at 1 kHz, on the rotor sensor
+ * scaled to arm rotations: Motion Magic for moves of the arm on its own, and
+ * plain position control with a velocity feedforward when following a planned
+ * setpoint from {@link frc.robot.commands.superstructure.MoveSuperstructure},
+ * which has already profiled every joint together. The arm angle comes from
+ * {@link ArmEncoderFusion}, which keeps the rotor lined up with the through bore
+ * and flags belt slip and encoder glitches. Targets are shifted into the rotor's
+ * frame by the fusion offset rather than re-seeding the Talon. The request is
+ * refreshed by the {@link MechanismControlLoop}, so the gravity feedforward tracks
+ * the arm at that rate rather than the scheduler's.
+ */
+public class Arm extends SubsystemABC implements MechanismControlLoop.Controller {
   /** Creates a new Arm. */
   private final TalonFX armRotation; // FIXME: Set encoder soft limits
-  private final DutyCycleEncoder armRotationEncoder;
-
-  private final PIDController pid = ArmConstants.ArmPIDForExternalEncoder.GetArmPID();
+  private final AbsoluteEncoderProcessor armRotationEncoder;
+
+  private final MotionMagicVoltage motionMagic = new MotionMagicVoltage(0);
+  private final PositionVoltage plannedPosition = new PositionVoltage(0);
+  private final VoltageOut voltageOut = new VoltageOut(0);
+  private final ArmFeedforward feedforward = ArmConstants.Feedforward.GetArmFeedforward();
+  private final StatusSignal<Double> rotorPosition;
+  private final StatusSignal<Double> rotorVelocity;
+  private final StatusSignal<Double> motorVoltage;
+  private final StatusSignal<Double> statorCurrent;
+  private final StallDetector stallDetector = new StallDetector("Arm", StallConstants.Arm.kWindow,
+      StallConstants.Arm.kMinOutput, StallConstants.Arm.kMinCurrent, StallConstants.Arm.kMaxVelocity);
+  private final ArmEncoderFusion fusion = new ArmEncoderFusion();
+  private final SettleDetector settleDetector = new SettleDetector("Arm", SettleConstants.Arm.kPositionTolerance,
+      SettleConstants.Arm.kVelocityTolerance, SettleConstants.Arm.kDwellTime);
+
+  private double powerScale = 1;
+
+  // control loop snapshot
+  private double sensedAngle = 0;
+  private double targetAngle = 0;
+  private double plannedVelocity = 0;
+  private boolean followingPlan = false;
+  private boolean closedLoop = false;
 
   private DoubleEntry armTarget;
   private DoubleEntry armOutput;
@@ -31,6 +80,9 @@ public class Arm extends SubsystemABC {
   private DoubleEntry armRotationEncoderAngle;
   private DoubleEntry armInternalEncoderValue;
   private DoubleEntry armInternalEncoderAngle;
+  private DoubleEntry fusedAngle;
+  private DoubleEntry fusionError;
+  private StringEntry fusionStatus;
 
   private DoubleEntry armHoldAngle;
   private BooleanEntry armHoldActive;
@@ -42,7 +94,12 @@ public class Arm extends SubsystemABC {
     
     armRotation = new TalonFX(CANConstants.Arm.kArm);
     armRotation.getConfigurator().apply(ArmConstants.GetArmMotorConfiguration());
-    armRotationEncoder = new DutyCycleEncoder(DIOConstants.Arm.kArmRotateEncoder);
+    armRotationEncoder = new AbsoluteEncoderProcessor("Arm", DIOConstants.Arm.kArmRotateEncoder,
+        EncoderConstants.Arm.kDefaultOffset, EncoderConstants.Arm.kMinAngle);
+    rotorPosition = armRotation.getPosition();
+    rotorVelocity = armRotation.getVelocity();
+    motorVoltage = armRotation.getMotorVoltage();
+    statorCurrent = armRotation.getStatorCurrent();
     
     setupNetworkTables("arm");
     
@@ -52,12 +109,13 @@ public class Arm extends SubsystemABC {
     armRotationEncoderAngle = ntTable.getDoubleTopic("rotation_angle").getEntry(0);
     armInternalEncoderValue = ntTable.getDoubleTopic("rotation_value_internal").getEntry(0);
     armInternalEncoderAngle = ntTable.getDoubleTopic("rotation_angle_internal").getEntry(0);
-    failure = ntTable.getBooleanTopic("rotation_angle_internal").getEntry(false);
+    fusedAngle = ntTable.getDoubleTopic("fused_angle").getEntry(0);
+    fusionError = ntTable.getDoubleTopic("fusion_error").getEntry(0);
+    fusionStatus = ntTable.getStringTopic("fusion_status").getEntry("");
+    failure = ntTable.getBooleanTopic("failure").getEntry(false);
     armHoldAngle = ntTable.getDoubleTopic("hold_angle").getEntry(0);
     armHoldActive = ntTable.getBooleanTopic("arm_hold_active").getEntry(false);
 
-    armRotationEncoder.setPositionOffset(0.3473);
-
     setupShuffleboard();
     seedNetworkTables();
   }
@@ -78,7 +136,6 @@ public class Arm extends SubsystemABC {
   public void setupShuffleboard() {
     tab.add("armRotation talon", armRotation);
     tab.add("armRotationEncoder", armRotationEncoder);
-    tab.add("pid controller", pid);
   }
 
   public void rotateOrHold(double power) {
@@ -110,33 +167,132 @@ public class Arm extends SubsystemABC {
   }
 
   public boolean isArmAtTarget() {
-    return pid.atSetpoint();
+    return Math.abs(getTarget() - getArmAngle()) < ArmConstants.ArmPIDForExternalEncoder.kRotationTolerance
+        && Math.abs(getArmVelocity()) < ArmConstants.ArmPIDForExternalEncoder.kVelocityTolerance;
   }
 
+  /** Hands the arm to closed-loop control on the current target; the control loop applies it. */
   public void rotateArmToTarget() {
-    SmartDashboard.putNumber("arm pid", pid.calculate(getArmAngle()));
-    this.setOutput(pid.calculate(getArmAngle()));
+    closedLoop = true;
+  }
+
+  /** Volts that hold the arm against gravity at its current angle. */
+  public double getGravityFeedforward() {
+    return feedforward.calculate(Math.toRadians(sensedAngle - ArmConstants.Feedforward.kHorizontalOffset), 0);
   }
 
   public void setPIDTarget(double target) {
     this.setTarget(target);
-    pid.setSetpoint(target);
+    targetAngle = target;
+    followingPlan = false;
+    settleDetector.setTarget(target);
+    rotateArmToTarget();
   }
 
-  public void stopArmRotation() {
-    this.setOutput(0);
+  /**
+   * One setpoint of a planned move, with its velocity in degrees per second.
+   * Sent as is rather than through Motion Magic, so the arm stays in step with
+   * the other joints.
+   */
+  public void setPlannedTarget(double target, double velocity) {
+    this.setTarget(target);
+    targetAngle = target;
+    plannedVelocity = velocity;
+    followingPlan = true;
+    settleDetector.setTarget(target);
+    rotateArmToTarget();
+  }
+
+  /** Arrived and stayed there, see {@link SettleDetector}. */
+  public boolean isSettled() {
+    return settleDetector.isSettled();
+  }
+
+  /** Predicted to have settled within {@code seconds}, so the next action can start. */
+  public boolean settlesWithin(double seconds) {
+    return settleDetector.settlesWithin(seconds);
+  }
+
+  /** Arm angle from this control loop tick, fresher than {@link #getArmAngle()}. */
+  public double getSensedAngle() {
+    return sensedAngle;
   }
 
   @Override
-  public void periodic() {
-    // This method will be called once per scheduler run
-    writePeriodicOutputs();
+  public void sense() {
+    BaseStatusSignal.refreshAll(rotorPosition, rotorVelocity);
+    double rotorAngle = BaseStatusSignal.getLatencyCompensatedValue(rotorPosition, rotorVelocity) * 360;
+    armRotationEncoder.update();
+    fusion.update(armRotationEncoder.getAngle(), armRotationEncoder.isConnected(), rotorAngle,
+        rotorVelocity.getValueAsDouble() * 360);
+    sensedAngle = fusion.getAngle();
+    settleDetector.update(sensedAngle, rotorVelocity.getValueAsDouble() * 360);
+  }
+
+  @Override
+  public void control() {
+    if (closedLoop) {
+      // the Talon runs the profile and the loop itself, this keeps the request applied and
+      // updates the gravity feedforward for where the arm actually is
+      double rotorTarget = targetAngle - fusion.getOffset();
+      if (followingPlan) {
+        armRotation.setControl(plannedPosition.withPosition(rotorTarget / 360).withVelocity(plannedVelocity / 360)
+            .withFeedForward(getGravityFeedforward()));
+      } else {
+        armRotation.setControl(motionMagic.withPosition(rotorTarget / 360).withFeedForward(getGravityFeedforward()));
+      }
+    }
+  }
+
+  /**
+   * Slows the arm while the PowerCoordinator has shed it: lowers the Motion Magic
+   * cruise velocity and scales manual output.
+   */
+  public void setPowerScale(double scale) {
+    powerScale = scale;
+    armRotation.getConfigurator().apply(ArmConstants.GetArmMotorConfiguration().MotionMagic
+        .withMotionMagicCruiseVelocity(ArmConstants.kMaxVelocity * scale / 360), CANConstants.kRuntimeConfigTimeout);
+  }
+
+  /** From the CurrentBudget, in amps. */
+  public void setSupplyCurrentLimit(double amps) {
+    armRotation.getConfigurator().apply(new CurrentLimitsConfigs()
+        .withSupplyCurrentLimit(amps)
+        .withSupplyCurrentLimitEnable(true), CANConstants.kRuntimeConfigTimeout);
+  }
+
+  /** Being moved, by hand or toward a target it hasn't settled on, so it should get its busy share of current. */
+  public boolean isMoving() {
+    return closedLoop ? !isSettled() : getOutput() != 0;
+  }
+
+  /** Amps from the battery. */
+  public double getSupplyCurrent() {
+    return armRotation.getSupplyCurrent().getValueAsDouble();
+  }
+
+  public void stopArmRotation() {
+    this.setOutput(0);
   }
 
   @Override
   public void writePeriodicOutputs() {
     readArmAngle();
     readRotationEncoder();
+    readInternalEncoder();
+    readArmAngleInternal();
+    readFusedAngle();
+    readStall();
+  }
+
+  /** Driving into something it can't move, like a hard stop. */
+  public Trigger stalled() {
+    return stallDetector.stalled();
+  }
+
+  public void readStall() {
+    BaseStatusSignal.refreshAll(motorVoltage, statorCurrent);
+    stallDetector.record(motorVoltage.getValueAsDouble(), statorCurrent.getValueAsDouble(), getArmVelocity());
   }
 
   // GETTERS
@@ -148,10 +304,25 @@ public class Arm extends SubsystemABC {
     return armOutput.get();
   }
 
+  /** Saves the through bore offset that makes where the arm is now read {@code angle} degrees. */
+  public void calibrateEncoder(double angle) {
+    armRotationEncoder.calibrate(angle);
+  }
+
+  /** Fused arm angle, see {@link ArmEncoderFusion}. */
   public double getArmAngle() {
+    return fusedAngle.get();
+  }
+
+  /** Raw through bore angle. */
+  public double getAbsoluteAngle() {
     return armRotationEncoderAngle.get();
   }
 
+  public ArmEncoderFusion.Status getFusionStatus() {
+    return fusion.getStatus();
+  }
+
   public double getEncoderValue() {
     return armRotationEncoderValue.get();
   }
@@ -168,6 +339,11 @@ public class Arm extends SubsystemABC {
     return armHoldActive.get();
   }
 
+  /** Degrees per second, from the rotor. */
+  public double getArmVelocity() {
+    return rotorVelocity.getValueAsDouble() * 360;
+  }
+
   private DoubleLogEntry armTargetLog = new DoubleLogEntry(log, "/arm/target");
   private DoubleLogEntry armOutputLog = new DoubleLogEntry(log, "/arm/output");
   private DoubleLogEntry armRotationEncoderValueLog = new DoubleLogEntry(log, "/arm/rotationValue");
@@ -180,12 +356,11 @@ public class Arm extends SubsystemABC {
 
   // SETTERS
   public void setOutput(double output) {
+    closedLoop = false;
     armOutput.set(output);
     armOutputLog.append(armOutput.get());
 
-    VoltageOut voltage = new VoltageOut(output);
-
-    armRotation.setControl(voltage.withOutput(output));
+    armRotation.setControl(voltageOut.withOutput(output * powerScale));
   }
 
   public void setTarget(double target) {
@@ -199,25 +374,46 @@ public class Arm extends SubsystemABC {
   }
 
   public void readArmAngle() {
-    armRotationEncoderAngle.set(armRotationEncoder.get() * 360);
+    armRotationEncoderAngle.set(armRotationEncoder.getAngle());
     armRotationEncoderAngleLog.append(armRotationEncoderAngle.get());
   }
 
   public void readRotationEncoder() {
-    armRotationEncoderValue.set(armRotationEncoder.get());
+    armRotationEncoderValue.set(armRotationEncoder.getAngle() / 360);
     armRotationEncoderValueLog.append(armRotationEncoderValue.get());
   }
 
   public void readArmAngleInternal() {
-    armInternalEncoderAngle.set(armRotation.getPosition().getValueAsDouble() / ArmConstants.kArmGearReduction);
+    // SensorToMechanismRatio already takes out the gear reduction
+    armInternalEncoderAngle.set(armInternalEncoderValue.get() * 360);
     armInternalEncoderAngleLog.append(armInternalEncoderAngle.get());
   }
 
   public void readInternalEncoder() {
-    armInternalEncoderValue.set(armRotation.getPosition().getValueAsDouble());
+    StatusSignal.refreshAll(rotorPosition, rotorVelocity);
+    armInternalEncoderValue.set(rotorPosition.getValueAsDouble());
     armInternalEncoderValueLog.append(armInternalEncoderValue.get());
   }
 
+  private DoubleLogEntry fusedAngleLog = new DoubleLogEntry(log, "/arm/fusedAngle");
+  private DoubleLogEntry fusionErrorLog = new DoubleLogEntry(log, "/arm/fusionError");
+  private StringLogEntry fusionStatusLog = new StringLogEntry(log, "/arm/fusionStatus");
+
+  public void readFusedAngle() {
+    fusedAngle.set(fusion.getAngle());
+    fusedAngleLog.append(fusion.getAngle());
+    fusionError.set(fusion.getError());
+    fusionErrorLog.append(fusion.getError());
+
+    String status = fusion.getStatus().name();
+    if (!status.equals(fusionStatus.get())) {
+      fusionStatusLog.append(status);
+    }
+    fusionStatus.set(status);
+    SmartDashboard.putNumber("Arm encoder glitches", fusion.getGlitchCount());
+    SmartDashboard.putNumber("Arm belt slips", fusion.getSlipCount());
+  }
+
   public void setArmHoldAngle(double angle) {
     armHoldAngle.set(angle);
     armHoldAngleLog.append(angle);
@@ -4,72 +4,284 @@
 
 package frc.robot.subsystems.climber;
 
-import com.revrobotics.CANSparkMax;
-
+import com.revrobotics.CANSparkBase.ControlType;
+import com.revrobotics.CANSparkBase.SoftLimitDirection;
 import com.revrobotics.CANSparkLowLevel.MotorType;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkPIDController;
+import com.revrobotics.SparkPIDController.ArbFFUnits;
 
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.networktables.BooleanEntry;
 import edu.wpi.first.networktables.DoubleEntry;
+import edu.wpi.first.util.datalog.BooleanLogEntry;
 import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.TimedRobot;
 import frc.robot.constants.CANConstants;
+import frc.robot.constants.CANConstants.FramePeriods;
+import frc.robot.constants.ClimberConstants;
+import frc.robot.constants.ElectricalConstants;
 import frc.robot.subsystems.SubsystemABC;
+import frc.robot.utils.SparkMaxFrames;
 
+/**
+ * Two climber hooks, each on its own SparkMax position loop so one side can't
+ * drag the other. Both follow one trapezoid profile stepped here every loop;
+ * extending uses a gentle profile and retracting a faster one. A side that is
+ * ahead is held back by feedforward proportional to how far ahead it is, and a
+ * side carrying the robot switches to stiffer gains and a holding feedforward.
+ *
+ * Positions are inches above the hard stop, found by {@link
+ * frc.robot.commands.climber.HomeClimber} at startup. Soft limits and closed-loop
+ * moves only turn on once it has homed.
+ */
 public class Climber extends SubsystemABC {
-  private final CANSparkMax climberMain;
-  private final CANSparkMax climberFollower;
+  private final CANSparkMax climberRight;
+  private final CANSparkMax climberLeft;
+  private final RelativeEncoder rightEncoder;
+  private final RelativeEncoder leftEncoder;
+  private final SparkPIDController rightController;
+  private final SparkPIDController leftController;
+
+  private final TrapezoidProfile extendProfile = new TrapezoidProfile(new TrapezoidProfile.Constraints(
+      ClimberConstants.ExtendProfile.kMaxVelocity, ClimberConstants.ExtendProfile.kMaxAcceleration));
+  private final TrapezoidProfile retractProfile = new TrapezoidProfile(new TrapezoidProfile.Constraints(
+      ClimberConstants.RetractProfile.kMaxVelocity, ClimberConstants.RetractProfile.kMaxAcceleration));
+  private TrapezoidProfile activeProfile = extendProfile;
+  private TrapezoidProfile.State setpoint = new TrapezoidProfile.State();
+  private TrapezoidProfile.State goal = null; // null while running open loop
+  private boolean homed = false;
+  private boolean rightLoaded = false;
+  private boolean leftLoaded = false;
 
   private DoubleEntry climberVoltage;
+  private DoubleEntry climberTarget;
+  private DoubleEntry rightPosition;
+  private DoubleEntry leftPosition;
+  private DoubleEntry rightCurrent;
+  private DoubleEntry leftCurrent;
+  private BooleanEntry climberHomed;
 
   /** Creates a new Climber. */
   public Climber() {
     super();
-    climberMain = new CANSparkMax(CANConstants.Climber.kClimberRightMain, MotorType.kBrushless);
-    climberFollower = new CANSparkMax(CANConstants.Climber.kClimberLeftFollower, MotorType.kBrushless);
+    climberRight = new CANSparkMax(CANConstants.Climber.kClimberRight, MotorType.kBrushless);
+    climberLeft = new CANSparkMax(CANConstants.Climber.kClimberLeft, MotorType.kBrushless);
+
+    rightEncoder = climberRight.getEncoder();
+    leftEncoder = climberLeft.getEncoder();
+    rightController = climberRight.getPIDController();
+    leftController = climberLeft.getPIDController();
+    configureSide(climberRight, rightEncoder, rightController);
+    configureSide(climberLeft, leftEncoder, leftController);
+    // both sides close their own loops, so both need position and current back
+    SparkMaxFrames.configure("Climber right", climberRight, FramePeriods.kNormal, FramePeriods.kNormal,
+        FramePeriods.kNormal);
+    SparkMaxFrames.configure("Climber left", climberLeft, FramePeriods.kNormal, FramePeriods.kNormal,
+        FramePeriods.kNormal);
+    climberRight.setCANTimeout(CANConstants.kRuntimeSparkTimeoutMs);
+    climberLeft.setCANTimeout(CANConstants.kRuntimeSparkTimeoutMs);
 
-    climberFollower.follow(climberMain);
-    
     setupNetworkTables("climber");
     climberVoltage = ntTable.getDoubleTopic("climber_voltage").getEntry(0);
+    climberTarget = ntTable.getDoubleTopic("target").getEntry(0);
+    rightPosition = ntTable.getDoubleTopic("right_position").getEntry(0);
+    leftPosition = ntTable.getDoubleTopic("left_position").getEntry(0);
+    rightCurrent = ntTable.getDoubleTopic("right_current").getEntry(0);
+    leftCurrent = ntTable.getDoubleTopic("left_current").getEntry(0);
+    climberHomed = ntTable.getBooleanTopic("homed").getEntry(false);
 
     setupShuffleboard();
     seedNetworkTables();
   }
-  
+
+  private static void configureSide(CANSparkMax motor, RelativeEncoder encoder, SparkPIDController controller) {
+    motor.enableVoltageCompensation(ElectricalConstants.kNominalVoltage);
+    encoder.setPositionConversionFactor(ClimberConstants.kInchesPerRotation);
+    encoder.setVelocityConversionFactor(ClimberConstants.kInchesPerRotation / 60);
+    // soft limits are in the converted units; they stay off until homed
+    motor.setSoftLimit(SoftLimitDirection.kForward, (float) ClimberConstants.kMaxExtension);
+    motor.setSoftLimit(SoftLimitDirection.kReverse, (float) ClimberConstants.kMinPosition);
+    motor.enableSoftLimit(SoftLimitDirection.kForward, false);
+    motor.enableSoftLimit(SoftLimitDirection.kReverse, false);
+    ClimberConstants.PID.ConfigureClimberPID(controller);
+  }
+
   @Override
   public void setupShuffleboard() {
-    // tab.add("climber main", climberMain);
-    // tab.add("climber follower", climberFollower);
+    // tab.add("climber right", climberRight);
+    // tab.add("climber left", climberLeft);
   }
 
   @Override
   public void seedNetworkTables() {
     setClimberVoltage(0);
     getClimberVoltage();
+    setHomed(false);
   }
 
   @Override
-  public void periodic() {
-    writePeriodicOutputs();
+  public void writePeriodicOutputs() {
+    readPositions();
+    readCurrents();
   }
 
+  /** Steps the profile and sends each side its setpoint, after every command has had its say. */
   @Override
-  public void writePeriodicOutputs() {
-    // write encoder values here!
+  public void flushOutputs() {
+    if (goal == null) {
+      return;
+    }
+    setpoint = activeProfile.calculate(TimedRobot.kDefaultPeriod, setpoint, goal);
+
+    rightLoaded = driveSide(rightController, getRightPosition(), getLeftPosition(), getRightCurrent(), rightLoaded);
+    leftLoaded = driveSide(leftController, getLeftPosition(), getRightPosition(), getLeftCurrent(), leftLoaded);
   }
-  
-  
-  // GETTERS  
+
+  /**
+   * Sends one side its setpoint and returns whether it is carrying the robot. The load
+   * switches on above kLoadCurrent and off below kUnloadCurrent, so current hovering
+   * around one threshold doesn't flip the gain slot every loop.
+   */
+  private boolean driveSide(SparkPIDController controller, double position, double otherPosition, double current,
+      boolean wasLoaded) {
+    boolean loaded = Math.abs(current) > (wasLoaded ? ClimberConstants.PID.kUnloadCurrent
+        : ClimberConstants.PID.kLoadCurrent);
+    double feedforward = ClimberConstants.PID.kV * setpoint.velocity
+        + ClimberConstants.PID.kSyncP * (otherPosition - position)
+        + (loaded ? ClimberConstants.PID.kLoadFeedforward : 0);
+    controller.setReference(setpoint.position, ControlType.kPosition,
+        loaded ? ClimberConstants.PID.kLoadedSlot : ClimberConstants.PID.kFreeSlot, feedforward, ArbFFUnits.kVoltage);
+    return loaded;
+  }
+
+  /** Zeroes both sides where they are, on the hard stop, and turns on the soft limits. */
+  public void finishHoming() {
+    rightEncoder.setPosition(0);
+    leftEncoder.setPosition(0);
+    for (CANSparkMax motor : new CANSparkMax[] { climberRight, climberLeft }) {
+      motor.enableSoftLimit(SoftLimitDirection.kForward, true);
+      motor.enableSoftLimit(SoftLimitDirection.kReverse, true);
+    }
+    setHomed(true);
+  }
+
+  /** Profiles both sides to {@code position} inches. Ignored until homed. */
+  public void setGoal(double position) {
+    if (!isHomed()) {
+      DriverStation.reportWarning("Climber: not homed, ignoring move to " + position, false);
+      return;
+    }
+    position = MathUtil.clamp(position, ClimberConstants.kMinPosition, ClimberConstants.kMaxExtension);
+    if (goal == null) {
+      // coming out of open loop, start the profile from where the hooks are
+      setpoint = new TrapezoidProfile.State(getPosition(),
+          (rightEncoder.getVelocity() + leftEncoder.getVelocity()) / 2);
+    }
+    activeProfile = position < setpoint.position ? retractProfile : extendProfile;
+    goal = new TrapezoidProfile.State(position, 0);
+    climberTarget.set(position);
+    climberTargetLog.append(position);
+  }
+
+  public boolean atGoal() {
+    return goal != null && setpoint.position == goal.position
+        && Math.abs(getRightPosition() - goal.position) < ClimberConstants.kPositionTolerance
+        && Math.abs(getLeftPosition() - goal.position) < ClimberConstants.kPositionTolerance;
+  }
+
+  /** From the CurrentBudget, in amps, shared between the two motors. */
+  public void setSupplyCurrentLimit(double amps) {
+    climberRight.setSmartCurrentLimit((int) (amps / 2));
+    climberLeft.setSmartCurrentLimit((int) (amps / 2));
+  }
+
+  // GETTERS
   public double getClimberVoltage() {
     return climberVoltage.get();
   }
 
+  /** Average of the two sides, inches. */
+  public double getPosition() {
+    return (getRightPosition() + getLeftPosition()) / 2;
+  }
+
+  public double getRightPosition() {
+    return rightPosition.get();
+  }
+
+  public double getLeftPosition() {
+    return leftPosition.get();
+  }
+
+  public double getRightCurrent() {
+    return rightCurrent.get();
+  }
+
+  public double getLeftCurrent() {
+    return leftCurrent.get();
+  }
+
+  /** Driven open loop or still short of its goal. */
+  public boolean isMoving() {
+    return getClimberVoltage() != 0 || (goal != null && !atGoal());
+  }
+
+  /** Closed loop on a goal, which after a climb means holding the robot up. */
+  public boolean isHoldingGoal() {
+    return goal != null;
+  }
+
+  public boolean isHomed() {
+    return homed;
+  }
 
   private DoubleLogEntry climberVoltageLog = new DoubleLogEntry(log, "/climber/voltage");
+  private DoubleLogEntry climberTargetLog = new DoubleLogEntry(log, "/climber/target");
+  private DoubleLogEntry rightPositionLog = new DoubleLogEntry(log, "/climber/rightPosition");
+  private DoubleLogEntry leftPositionLog = new DoubleLogEntry(log, "/climber/leftPosition");
+  private DoubleLogEntry rightCurrentLog = new DoubleLogEntry(log, "/climber/rightCurrent");
+  private DoubleLogEntry leftCurrentLog = new DoubleLogEntry(log, "/climber/leftCurrent");
+  private BooleanLogEntry homedLog = new BooleanLogEntry(log, "/climber/homed");
 
   // SETTERS
+  /** Both sides open loop, leaves the profile. */
   public void setClimberVoltage(double voltage) {
-    climberVoltage.set(voltage);
+    setSideVoltages(voltage, voltage);
+  }
+
+  /** Each side open loop, for homing. Leaves the profile. */
+  public void setSideVoltages(double right, double left) {
+    goal = null;
+    rightLoaded = false;
+    leftLoaded = false;
+    climberVoltage.set((right + left) / 2);
     climberVoltageLog.append(climberVoltage.get());
 
-    climberMain.set(climberVoltage.get());
+    climberRight.set(right / ElectricalConstants.kNominalVoltage);
+    climberLeft.set(left / ElectricalConstants.kNominalVoltage);
+  }
+
+  private void setHomed(boolean state) {
+    homed = state;
+    climberHomed.set(state);
+    homedLog.append(state);
+  }
+
+  public void readPositions() {
+    rightPosition.set(rightEncoder.getPosition());
+    rightPositionLog.append(rightPosition.get());
+    leftPosition.set(leftEncoder.getPosition());
+    leftPositionLog.append(leftPosition.get());
+  }
+
+  public void readCurrents() {
+    rightCurrent.set(climberRight.getOutputCurrent());
+    rightCurrentLog.append(rightCurrent.get());
+    leftCurrent.set(climberLeft.getOutputCurrent());
+    leftCurrentLog.append(leftCurrent.get());
   }
 }
@@ -5,28 +5,67 @@
 package frc.robot.subsystems.Intake;
 
 import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkPIDController;
+import com.revrobotics.CANSparkBase.ControlType;
 import com.revrobotics.CANSparkLowLevel.MotorType;
 
 import edu.wpi.first.networktables.DoubleEntry;
 import edu.wpi.first.util.datalog.DoubleLogEntry;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.constants.CANConstants;
+import frc.robot.constants.CANConstants.FramePeriods;
+import frc.robot.constants.ElectricalConstants;
+import frc.robot.constants.IntakeConstants;
+import frc.robot.constants.StallConstants;
+import frc.robot.constants.ThermalConstants;
 import frc.robot.subsystems.SubsystemABC;
+import frc.robot.utils.SparkMaxFrames;
+import frc.robot.utils.StallDetector;
+import frc.robot.utils.ThermalModel;
 
 public class IntakeWheels extends SubsystemABC {
   private final CANSparkMax intakeWheel;
+  private final RelativeEncoder intakeEncoder;
+  private final SparkPIDController intakeController;
+  private double sentVelocity = Double.NaN;
+  // last output set this loop, sent once in flushOutputs(); at most one of them is a number
+  private double pendingVoltage = Double.NaN;
+  private double pendingVelocity = Double.NaN;
+  private final StallDetector stallDetector = new StallDetector("IntakeWheels", StallConstants.IntakeWheels.kWindow,
+      StallConstants.IntakeWheels.kMinOutput,
+      ThermalConstants.IntakeCurrent.kSmartLimit * StallConstants.IntakeWheels.kMinCurrentFraction,
+      StallConstants.IntakeWheels.kMaxVelocity);
+  private final ThermalModel thermal = new ThermalModel("Intake wheels", ThermalConstants.kNeoResistance);
+  private double currentScale = 1;
+  private double powerScale = 1;
+  private double budgetLimit = ThermalConstants.IntakeCurrent.kSmartLimit;
 
   private DoubleEntry intakeVoltage;
+  private DoubleEntry intakeVelocityTarget;
+  private DoubleEntry intakeVelocity;
 
   /** Creates a new Intake. */
   public IntakeWheels() {
     super();
 
     intakeWheel = new CANSparkMax(CANConstants.Intake.kIntakeWheels, MotorType.kBrushless);
+    intakeWheel.enableVoltageCompensation(ElectricalConstants.kNominalVoltage);
+    intakeWheel.setSmartCurrentLimit(ThermalConstants.IntakeCurrent.kSmartLimit);
+    intakeEncoder = intakeWheel.getEncoder();
+    intakeController = intakeWheel.getPIDController();
+    IntakeConstants.WheelPID.ConfigureWheelPID(intakeController);
+    // velocity and bus voltage only, nothing reads the wheel position
+    SparkMaxFrames.configure("Intake wheels", intakeWheel, FramePeriods.kNormal, FramePeriods.kNormal,
+        FramePeriods.kUnused);
+    intakeWheel.setCANTimeout(CANConstants.kRuntimeSparkTimeoutMs);
 
     setupNetworkTables("Intake");
 
     intakeVoltage = ntTable.getDoubleTopic("wheels_voltage").getEntry(0);
+    intakeVelocityTarget = ntTable.getDoubleTopic("wheels_velocity_target").getEntry(0);
+    intakeVelocity = ntTable.getDoubleTopic("wheels_velocity").getEntry(0);
 
     setupShuffleboard();
     seedNetworkTables();
@@ -40,14 +79,53 @@ public class IntakeWheels extends SubsystemABC {
   @Override
   public void periodic() {
     // This method will be called once per scheduler run
-    writePeriodicOutputs();
 
     SmartDashboard.putNumber("Intake bus voltage", intakeWheel.getBusVoltage());
   }
 
   @Override
   public void writePeriodicOutputs() {
+    readIntakeVelocity();
+    readStall();
+    readThermal();
+  }
+
+  public void readThermal() {
+    thermal.update(intakeWheel.getOutputCurrent(), intakeWheel.getMotorTemperature());
+    thermal.publishHeadroom(ThermalConstants.IntakeCurrent.kEnd);
+
+    double scale = ThermalModel.derate(thermal.getTemperature(), ThermalConstants.IntakeCurrent.kStart,
+        ThermalConstants.IntakeCurrent.kEnd, ThermalConstants.IntakeCurrent.kMinScale);
+    if (scale != currentScale) {
+      currentScale = scale;
+      applyCurrentLimit();
+    }
+  }
+
+  /**
+   * From the CurrentBudget, in amps. The SparkMax can only limit motor current,
+   * which is never less than supply current, so this errs on the safe side.
+   */
+  public void setSupplyCurrentLimit(double amps) {
+    budgetLimit = amps;
+    applyCurrentLimit();
+  }
 
+  // whichever is lower of the thermal derating and the budget; the stall threshold follows it
+  private void applyCurrentLimit() {
+    int limit = (int) Math.min(ThermalConstants.IntakeCurrent.kSmartLimit * currentScale, budgetLimit);
+    intakeWheel.setSmartCurrentLimit(limit);
+    stallDetector.setMinCurrent(limit * StallConstants.IntakeWheels.kMinCurrentFraction);
+  }
+
+  /** A note jammed in the intake. */
+  public Trigger stalled() {
+    return stallDetector.stalled();
+  }
+
+  public void readStall() {
+    stallDetector.record(intakeWheel.getAppliedOutput() * intakeWheel.getBusVoltage(), intakeWheel.getOutputCurrent(),
+        getIntakeVelocity());
   }
 
   @Override
@@ -61,13 +139,68 @@ public class IntakeWheels extends SubsystemABC {
     return intakeVoltage.get();
   }
 
+  /** Wheel speed in rpm. */
+  public double getIntakeVelocity() {
+    return intakeVelocity.get();
+  }
+
+  /** Running in either direction, so the wheels should get their busy share of current. */
+  public boolean isRunning() {
+    return getIntakeWheels() != 0 || !Double.isNaN(sentVelocity);
+  }
+
+  /** Amps from the battery. The SparkMax only reports motor current, so this scales it by the duty cycle. */
+  public double getSupplyCurrent() {
+    return intakeWheel.getOutputCurrent() * Math.abs(intakeWheel.getAppliedOutput());
+  }
+
   private DoubleLogEntry intakeVoltageLog = new DoubleLogEntry(log, "/Intake/target");
+  private DoubleLogEntry intakeVelocityTargetLog = new DoubleLogEntry(log, "/Intake/velocityTarget");
+  private DoubleLogEntry intakeVelocityLog = new DoubleLogEntry(log, "/Intake/velocity");
 
   // SETTERS
   public void setIntakeWheels(double voltage) {
     intakeVoltage.set(voltage);
     intakeVoltageLog.append(voltage);
+    pendingVoltage = voltage;
+    pendingVelocity = Double.NaN;
+  }
+
+  /** Slows the wheels while the PowerCoordinator has shed the intake. Takes effect on the next setpoint. */
+  public void setPowerScale(double scale) {
+    powerScale = scale;
+  }
+
+  /** Holds the wheels at {@code rpm} with the SparkMax's velocity loop. 0 lets them coast down. */
+  public void setIntakeVelocity(double rpm) {
+    if (rpm == 0) {
+      setIntakeWheels(0);
+      return;
+    }
+    rpm *= powerScale;
+    intakeVelocityTarget.set(rpm);
+    intakeVelocityTargetLog.append(rpm);
+    pendingVelocity = rpm;
+    pendingVoltage = Double.NaN;
+  }
+
+  @Override
+  public void flushOutputs() {
+    if (!Double.isNaN(pendingVoltage)) {
+      intakeWheel.set(pendingVoltage * powerScale / ElectricalConstants.kNominalVoltage);
+      sentVelocity = Double.NaN;
+    } else if (!Double.isNaN(pendingVelocity) && pendingVelocity != sentVelocity) {
+      // a velocity already running isn't re-sent, that would only spend a CAN frame
+      intakeController.setReference(pendingVelocity, ControlType.kVelocity);
+      sentVelocity = pendingVelocity;
+    }
+    pendingVoltage = Double.NaN;
+    pendingVelocity = Double.NaN;
+  }
 
-    intakeWheel.set(voltage);
+  public void readIntakeVelocity() {
+    double velocity = intakeEncoder.getVelocity();
+    intakeVelocity.set(velocity);
+    intakeVelocityLog.append(velocity);
   }
 }
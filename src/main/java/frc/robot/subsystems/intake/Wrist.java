@@ -5,27 +5,71 @@
 package frc.robot.subsystems.Intake;
 
 import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkPIDController;
+import com.revrobotics.CANSparkBase.ControlType;
 import com.revrobotics.CANSparkLowLevel.MotorType;
 
-import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.networktables.BooleanEntry;
 import edu.wpi.first.networktables.DoubleEntry;
 import edu.wpi.first.util.datalog.BooleanLogEntry;
 import edu.wpi.first.util.datalog.DoubleLogEntry;
-import edu.wpi.first.wpilibj.DutyCycleEncoder;
 import edu.wpi.first.wpilibj.motorcontrol.Spark;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.constants.CANConstants;
+import frc.robot.constants.CANConstants.FramePeriods;
 import frc.robot.constants.DIOConstants;
+import frc.robot.constants.ElectricalConstants;
+import frc.robot.constants.EncoderConstants;
 import frc.robot.constants.IntakeConstants;
+import frc.robot.constants.SettleConstants;
+import frc.robot.constants.StallConstants;
 import frc.robot.subsystems.SubsystemABC;
 import frc.robot.subsystems.leds.Leds;
-
-public class Wrist extends SubsystemABC {
+import frc.robot.utils.AbsoluteEncoderProcessor;
+import frc.robot.utils.MechanismControlLoop;
+import frc.robot.utils.SparkMaxFrames;
+import frc.robot.utils.SettleDetector;
+import frc.robot.utils.StallDetector;
+
+/**
+ * Intake wrist. The position loop runs on the SparkMax against its built-in
+ * encoder; the {@link MechanismControlLoop} shifts the target into that
+ * encoder's frame and only sends it when it changes. Commands only set the
+ * target and turn closed-loop control on.
+ *
+ * The through bore is the position reference. The SparkMax's built-in encoder
+ * is kept lined up with it and cross-checked every tick. If the through bore
+ * unplugs, the wrist carries on from the built-in encoder and flags it, instead
+ * of going limp for the rest of the match.
+ */
+public class Wrist extends SubsystemABC implements MechanismControlLoop.Controller {
   private final CANSparkMax wristRotation;
-  private final DutyCycleEncoder wristRotationEncoder;
-
-  private final PIDController pid = IntakeConstants.WristPID.GetWristPID();
+  private final AbsoluteEncoderProcessor wristRotationEncoder;
+  private final RelativeEncoder wristMotorEncoder;
+
+  // built-in encoder plus this is the wrist angle, kept in step with the through bore
+  private double motorEncoderOffset = 0;
+  private boolean motorEncoderSeeded = false;
+
+  private final SparkPIDController wristController;
+  private final StallDetector stallDetector = new StallDetector("Wrist", StallConstants.Wrist.kWindow,
+      StallConstants.Wrist.kMinOutput, StallConstants.Wrist.kMinCurrent, StallConstants.Wrist.kMaxVelocity);
+  private final SettleDetector settleDetector = new SettleDetector("Wrist", SettleConstants.Wrist.kPositionTolerance,
+      SettleConstants.Wrist.kVelocityTolerance, SettleConstants.Wrist.kDwellTime);
+  private double targetAngle = 0;
+  private double lastSentTarget = Double.NaN;
+
+  // control loop snapshot
+  private double sensedAngle = 0;
+  private boolean sensedValid = false;
+  private boolean sensedOnMotorEncoder = false;
+  private double sensedDisagreement = 0;
+  private boolean closedLoop = false;
+  // open-loop voltage set this loop, sent once in flushOutputs()
+  private double pendingVoltage = Double.NaN;
 
   private DoubleEntry wristVoltage;
   private DoubleEntry rotationEncoderValue;
@@ -34,13 +78,25 @@ public class Wrist extends SubsystemABC {
 
   private BooleanEntry failure;
   private BooleanEntry towardShooter;
+  private BooleanEntry usingMotorEncoder;
+  private BooleanEntry encoderMismatch;
 
   /** Creates a new Intake. */
   public Wrist() {
     super();
 
     wristRotation = new CANSparkMax(CANConstants.Intake.kIntakeWrist, MotorType.kBrushless);
-    wristRotationEncoder = new DutyCycleEncoder(DIOConstants.Intake.kIntakeRotateEncoder);
+    wristRotation.enableVoltageCompensation(ElectricalConstants.kNominalVoltage);
+    wristRotationEncoder = new AbsoluteEncoderProcessor("Wrist", DIOConstants.Intake.kIntakeRotateEncoder,
+        EncoderConstants.Intake.kDefaultOffset, EncoderConstants.Intake.kMinAngle);
+    wristMotorEncoder = wristRotation.getEncoder();
+    wristMotorEncoder.setPositionConversionFactor(360 / IntakeConstants.WristPID.kWristGearReduction);
+    wristMotorEncoder.setVelocityConversionFactor(360 / IntakeConstants.WristPID.kWristGearReduction / 60);
+    wristController = wristRotation.getPIDController();
+    IntakeConstants.WristPID.ConfigureWristPID(wristController);
+    // position is read every control loop tick for the cross-check
+    SparkMaxFrames.configure("Wrist", wristRotation, FramePeriods.kNormal, FramePeriods.kNormal, FramePeriods.kFast);
+    wristRotation.setCANTimeout(CANConstants.kRuntimeSparkTimeoutMs);
 
     setupNetworkTables("Intake");
 
@@ -50,8 +106,8 @@ public class Wrist extends SubsystemABC {
     rotationTarget = ntTable.getDoubleTopic("rotation_target").getEntry(0);
     failure = ntTable.getBooleanTopic("failure").getEntry(false);
     towardShooter = ntTable.getBooleanTopic("toward_shooter").getEntry(false);
-
-    wristRotationEncoder.setPositionOffset(0);
+    usingMotorEncoder = ntTable.getBooleanTopic("using_motor_encoder").getEntry(false);
+    encoderMismatch = ntTable.getBooleanTopic("encoder_mismatch").getEntry(false);
 
     setupShuffleboard();
     seedNetworkTables();
@@ -64,24 +120,25 @@ public class Wrist extends SubsystemABC {
 
   @Override
   public void setupShuffleboard() {
-    tab.add("PID Controller", pid);
-  }
-
-  @Override
-  public void periodic() {
-    wristRotationEncoder.setPositionOffset(0);
-     if(!wristRotationEncoder.isConnected()) {
-      wristRotation.setVoltage(0);
-    }
-
-    // This method will be called once per scheduler run
-    writePeriodicOutputs();
+    tab.add("Wrist Encoder", wristRotationEncoder);
   }
 
   @Override
   public void writePeriodicOutputs() {
     readWristAngle();
     readIntakeEncoder();
+    readEncoderHealth();
+    readStall();
+  }
+
+  /** Driving into something it can't move. */
+  public Trigger stalled() {
+    return stallDetector.stalled();
+  }
+
+  public void readStall() {
+    stallDetector.record(wristRotation.getAppliedOutput() * wristRotation.getBusVoltage(),
+        wristRotation.getOutputCurrent(), wristMotorEncoder.getVelocity());
   }
 
   @Override
@@ -90,18 +147,96 @@ public class Wrist extends SubsystemABC {
     getWristVoltage();
   }
 
+  /** Hands the wrist to the control loop's PID on the current target. */
   public void rotateWristPID() {
-    double output = pid.calculate(getWristAngle());
-    setWristVoltage(output);
+    closedLoop = true;
+    pendingVoltage = Double.NaN;
+  }
+
+  @Override
+  public void sense() {
+    wristRotationEncoder.update();
+    double motorAngle = wristMotorEncoder.getPosition();
+
+    if (wristRotationEncoder.isConnected()) {
+      double absoluteAngle = wristRotationEncoder.getAngle();
+      if (!motorEncoderSeeded) {
+        motorEncoderOffset = absoluteAngle - motorAngle;
+        motorEncoderSeeded = true;
+      }
+      sensedDisagreement = absoluteAngle - (motorAngle + motorEncoderOffset);
+      // the filtered through bore lags while the wrist moves, so only trim toward it when still
+      if (Math.abs(wristMotorEncoder.getVelocity()) < IntakeConstants.WristPID.kWristStillVelocity) {
+        motorEncoderOffset += IntakeConstants.WristPID.kWristOffsetGain * sensedDisagreement;
+      }
+      sensedAngle = absoluteAngle;
+      sensedOnMotorEncoder = false;
+      sensedValid = true;
+    } else {
+      // nothing to check against, and no position at all if the through bore never read
+      sensedDisagreement = 0;
+      sensedAngle = motorAngle + motorEncoderOffset;
+      sensedOnMotorEncoder = true;
+      sensedValid = motorEncoderSeeded;
+    }
+
+    if (sensedValid) {
+      settleDetector.update(sensedAngle, sensedOnMotorEncoder ? wristMotorEncoder.getVelocity()
+          : wristRotationEncoder.getVelocity());
+    }
+  }
+
+  @Override
+  public void control() {
+    if (!closedLoop) {
+      return;
+    }
+    if (!sensedValid) {
+      applyOutput(0);
+      return;
+    }
+    double motorTarget = targetAngle - motorEncoderOffset;
+    if (Double.isNaN(lastSentTarget)
+        || Math.abs(motorTarget - lastSentTarget) > IntakeConstants.WristPID.kResendDegrees) {
+      wristController.setReference(motorTarget, ControlType.kPosition);
+      lastSentTarget = motorTarget;
+      setTowardIntake(targetAngle < sensedAngle);
+    }
   }
 
   public void setPIDTarget(double target) {
     setTarget(target);
-    pid.setSetpoint(target);
+    targetAngle = target;
+    settleDetector.setTarget(target);
+  }
+
+  /** Arrived and stayed there, see {@link SettleDetector}. */
+  public boolean isSettled() {
+    return settleDetector.isSettled();
+  }
+
+  /** Predicted to have settled within {@code seconds}, so the next action can start. */
+  public boolean settlesWithin(double seconds) {
+    return settleDetector.settlesWithin(seconds);
   }
 
   public boolean pidAtSetpoint() {
-    return pid.atSetpoint();
+    return Math.abs(targetAngle - sensedAngle) < IntakeConstants.WristPID.kRotationTolerance;
+  }
+
+  /** From the CurrentBudget, in amps. The SparkMax limits motor current, which is never less than supply. */
+  public void setSupplyCurrentLimit(double amps) {
+    wristRotation.setSmartCurrentLimit((int) amps);
+  }
+
+  /** Being moved, by hand or toward a target it hasn't settled on, so it should get its busy share of current. */
+  public boolean isMoving() {
+    return closedLoop ? !isSettled() : getWristVoltage() != 0;
+  }
+
+  /** Amps from the battery. The SparkMax only reports motor current, so this scales it by the duty cycle. */
+  public double getSupplyCurrent() {
+    return wristRotation.getOutputCurrent() * Math.abs(wristRotation.getAppliedOutput());
   }
 
   // GETTERS
@@ -134,6 +269,23 @@ public class Wrist extends SubsystemABC {
 
   // SETTERS
   public void setWristVoltage(double voltage) {
+    closedLoop = false;
+    pendingVoltage = voltage;
+  }
+
+  @Override
+  public void flushOutputs() {
+    if (Double.isNaN(pendingVoltage)) {
+      return;
+    }
+    // never had a position since boot, so nothing drives it blind
+    applyOutput(sensedValid ? pendingVoltage : 0);
+    pendingVoltage = Double.NaN;
+  }
+
+  private void applyOutput(double voltage) {
+    lastSentTarget = Double.NaN;
+    voltage = MathUtil.clamp(voltage, -ElectricalConstants.kNominalVoltage, ElectricalConstants.kNominalVoltage);
     wristVoltage.set(voltage);
     wristVoltageLog.append(voltage);
 
@@ -143,52 +295,52 @@ public class Wrist extends SubsystemABC {
       setTowardIntake(true);
     }
 
-    wristRotation.set(voltage); // TODO FIGURE OUT HOW TO CAP THIS
+    wristRotation.set(voltage / ElectricalConstants.kNominalVoltage);
   }
 
   public void readWristAngle() {
-    double rawEncoderValue = wristRotationEncoder.get();
-    double rotationAngleValue = rawEncoderValue * 360;
-
-    SmartDashboard.putNumber("Wrist Encoder Value", rawEncoderValue);
-    SmartDashboard.putNumber("Wrist Angle Raw (enc * 360)", rawEncoderValue * 360);
+    double rotationAngleValue = sensedAngle;
 
     SmartDashboard.putNumber("Wrist Abs Position", wristRotationEncoder.getAbsolutePosition());
-    SmartDashboard.putNumber("Wrist Abs Position W/ Offset",
-        wristRotationEncoder.getAbsolutePosition() - wristRotationEncoder.getPositionOffset());
-    SmartDashboard.putNumber("Wrist Angle Position", wristRotationEncoder.getAbsolutePosition() * 360);
-    SmartDashboard.putNumber("Wrist Angle Position W/ Offset",
-        (wristRotationEncoder.getAbsolutePosition() - wristRotationEncoder.getPositionOffset()) * 360);
-
-    if (rawEncoderValue < 0) {
-      SmartDashboard.putNumber("Encoder negative", rawEncoderValue * 180 + 360);
-    } else {
-      SmartDashboard.putNumber("Encoder positive", rawEncoderValue * 180);
-    }
-
-    // if(rotationAngleValue > 300) {
-    // rotationAngleValue -= 360;
-    // } else if (rotationAngleValue < -50) {
-    // rotationAngleValue += 360;
-    // }
-
-    SmartDashboard.putNumber("Wrist after wrap around check", rotationAngleValue);
 
     rotationAngle.set(rotationAngleValue);
     rotationAngleLog.append(rotationAngleValue);
   }
 
   public void readIntakeEncoder() {
-    double rotationValue = wristRotationEncoder.get();
-    if (rotationValue > 300 / 360) {
-      rotationValue -= 1;
-    } else if (rotationValue < -50 / 360) {
-      rotationValue += 1;
-    }
+    double rotationValue = wristRotationEncoder.getAngle() / 360;
     rotationEncoderValue.set(rotationValue);
     rotationEncoderValueLog.append(rotationValue);
   }
 
+  private BooleanLogEntry usingMotorEncoderLog = new BooleanLogEntry(log, "/Intake/usingMotorEncoder");
+  private BooleanLogEntry encoderMismatchLog = new BooleanLogEntry(log, "/Intake/encoderMismatch");
+  private DoubleLogEntry encoderDisagreementLog = new DoubleLogEntry(log, "/Intake/encoderDisagreement");
+
+  public void readEncoderHealth() {
+    boolean mismatch = Math.abs(sensedDisagreement) > IntakeConstants.WristPID.kWristCrossCheckDegrees;
+    if (sensedOnMotorEncoder != usingMotorEncoder.get()) {
+      usingMotorEncoderLog.append(sensedOnMotorEncoder);
+    }
+    if (mismatch != encoderMismatch.get()) {
+      encoderMismatchLog.append(mismatch);
+    }
+    usingMotorEncoder.set(sensedOnMotorEncoder);
+    encoderMismatch.set(mismatch);
+    encoderDisagreementLog.append(sensedDisagreement);
+  }
+
+  /** Saves the through bore offset that makes where the wrist is now read {@code angle} degrees. */
+  public void calibrateEncoder(double angle) {
+    wristRotationEncoder.calibrate(angle);
+    motorEncoderSeeded = false; // reseed the SparkMax encoder from the new angle
+  }
+
+  /** True while the wrist is running on the SparkMax's encoder because the through bore is unplugged. */
+  public boolean isUsingMotorEncoder() {
+    return usingMotorEncoder.get();
+  }
+
   public void setTarget(double target) {
     rotationTarget.set(target);
     rotationTargetLog.append(target);
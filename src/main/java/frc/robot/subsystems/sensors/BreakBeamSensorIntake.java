@@ -32,11 +32,6 @@ public class BreakBeamSensorIntake extends SubsystemABC {
     tab.add("BreakBeam", receiverIntake);
   }
 
-  @Override
-  public void periodic() {
-    writePeriodicOutputs();
-  }
-
   @Override
   public void seedNetworkTables() {
   }
@@ -32,11 +32,6 @@ public class BreakBeamSensorShooter extends SubsystemABC {
     tab.add("BreakBeam", receiverShooter);
   }
 
-  @Override
-  public void periodic() {
-    writePeriodicOutputs();
-  }
-
   @Override
   public void seedNetworkTables() {
   }
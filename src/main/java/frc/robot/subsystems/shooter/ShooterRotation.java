@@ -7,29 +7,67 @@ package frc.robot.subsystems.shooter;
 import java.util.function.DoubleSupplier;
 
 import com.ctre.phoenix6.SignalLogger;
-import com.ctre.phoenix6.controls.DutyCycleOut;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.controls.MotionMagicVoltage;
+import com.ctre.phoenix6.controls.PositionVoltage;
+import com.ctre.phoenix6.controls.VoltageOut;
 import com.ctre.phoenix6.hardware.TalonFX;
-import edu.wpi.first.math.controller.PIDController;
+
+import edu.wpi.first.math.controller.ArmFeedforward;
 import edu.wpi.first.networktables.BooleanEntry;
 import edu.wpi.first.networktables.DoubleEntry;
 import edu.wpi.first.util.datalog.BooleanLogEntry;
 import edu.wpi.first.util.datalog.DoubleLogEntry;
-import edu.wpi.first.wpilibj.DutyCycleEncoder;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.constants.CANConstants;
 import frc.robot.constants.DIOConstants;
+import frc.robot.constants.EncoderConstants;
+import frc.robot.constants.SettleConstants;
 import frc.robot.constants.ShooterConstants;
 import frc.robot.subsystems.SubsystemABC;
-
-public class ShooterRotation extends SubsystemABC {
+import frc.robot.utils.AbsoluteEncoderProcessor;
+import frc.robot.utils.MechanismControlLoop;
+import frc.robot.utils.SettleDetector;
+
+/**
+ * Shooter pivot. Setpoints are in the same frame as {@link #getEncoderAngle()}
+ * (arm angle taken out), but the Talon's rotor sensor sees the pivot relative to
+ * the arm, so the arm angle is added back when the target is sent. Single-joint
+ * moves run Motion Magic; setpoints from a planned superstructure move go out as
+ * plain position control with the plan's velocity as feedforward, so the pivot
+ * stays in step with the arm and wrist. The through bore seeds the rotor and
+ * corrects drift while the pivot is still.
+ * The target is re-sent by the {@link MechanismControlLoop} so it follows the
+ * arm at that rate.
+ */
+public class ShooterRotation extends SubsystemABC implements MechanismControlLoop.Controller {
   // Motors
   private final TalonFX shooterRotate; // Kraken
 
   // Encoder
-  private final DutyCycleEncoder shooterRotateEncoder; // Through Bore Encoder
+  private final AbsoluteEncoderProcessor shooterRotateEncoder; // Through Bore Encoder
   private final DoubleSupplier currentArmRotationSupplier;
 
-  private final PIDController rotatePID = ShooterConstants.RotationPIDForExternalEncoder.GetRotationPID();
+  private final MotionMagicVoltage motionMagic = new MotionMagicVoltage(0);
+  private final PositionVoltage plannedPosition = new PositionVoltage(0);
+  private final VoltageOut voltageOut = new VoltageOut(0);
+  private final ArmFeedforward feedforward = ShooterConstants.RotationFeedforward.GetRotationFeedforward();
+  private final StatusSignal<Double> rotorPosition;
+  private final StatusSignal<Double> rotorVelocity;
+  private boolean rotorSeeded = false;
+  private final SettleDetector settleDetector = new SettleDetector("Shooter pivot",
+      SettleConstants.Shooter.kPositionTolerance, SettleConstants.Shooter.kVelocityTolerance,
+      SettleConstants.Shooter.kDwellTime);
+
+  // control loop snapshot
+  private double sensedAngle = 0;
+  private double sensedArmAngle = 0;
+  private double targetAngle = 0;
+  private double plannedVelocity = 0;
+  private boolean followingPlan = false;
+  private boolean closedLoop = false;
+  // open-loop voltage set this loop, sent once in flushOutputs()
+  private double pendingVoltage = Double.NaN;
 
   private final DoubleEntry rotateVoltage;
   private final DoubleEntry rotateTarget;
@@ -41,8 +79,11 @@ public class ShooterRotation extends SubsystemABC {
   public ShooterRotation(DoubleSupplier currentArmRotationSupplier) {
     super();
     shooterRotate = new TalonFX(CANConstants.Shooter.kShooterPivot);
-    shooterRotateEncoder = new DutyCycleEncoder(DIOConstants.Shooter.kShooterRotateEncoder);
+    shooterRotateEncoder = new AbsoluteEncoderProcessor("Shooter", DIOConstants.Shooter.kShooterRotateEncoder,
+        EncoderConstants.Shooter.kDefaultOffset, EncoderConstants.Shooter.kMinAngle);
     shooterRotate.getConfigurator().apply(ShooterConstants.GetRotationConfiguration());
+    rotorPosition = shooterRotate.getPosition();
+    rotorVelocity = shooterRotate.getVelocity();
     this.currentArmRotationSupplier = currentArmRotationSupplier;
 
     SignalLogger.start();
@@ -56,8 +97,6 @@ public class ShooterRotation extends SubsystemABC {
     encoderAngle = ntTable.getDoubleTopic("encoder_angle").getEntry(0);
     failure = ntTable.getBooleanTopic("failure").getEntry(false);
 
-    shooterRotateEncoder.setPositionOffset(0.9170); // REMEMBER TO RESET AT HOME
-
     setupShuffleboard();
     seedNetworkTables();
   }
@@ -66,7 +105,6 @@ public class ShooterRotation extends SubsystemABC {
   public void setupShuffleboard() {
     tab.add("shooter rotate encoder", shooterRotateEncoder);
     tab.add("shoote rotate motor", shooterRotate);
-    tab.add("rotation pid controller", rotatePID);
   }
 
   @Override
@@ -74,6 +112,30 @@ public class ShooterRotation extends SubsystemABC {
     readEncoderAngle();
     readEncoderAngleWithoutOffset();
     readEncoderValue();
+    syncRotorToAbsolute();
+  }
+
+  /*
+   * Seed the rotor from the through bore the first time it reads, then correct any
+   * drift while the pivot is still.
+   */
+  private void syncRotorToAbsolute() {
+    StatusSignal.refreshAll(rotorPosition, rotorVelocity);
+    if (!shooterRotateEncoder.isConnected()) {
+      return;
+    }
+    double pivotOnArm = getPivotAngleOnArm();
+    double drift = pivotOnArm - rotorPosition.getValueAsDouble() * 360;
+    boolean still = Math.abs(getRotateVelocity()) < ShooterConstants.kRotateResyncMaxVelocity;
+    if (!rotorSeeded || (still && Math.abs(drift) > ShooterConstants.kRotateResyncDegrees)) {
+      shooterRotate.setPosition(pivotOnArm / 360);
+      rotorSeeded = true;
+    }
+  }
+
+  // Pivot angle relative to the arm, which is what the rotor sensor measures
+  private double getPivotAngleOnArm() {
+    return getEncoderAngle() + currentArmRotationSupplier.getAsDouble();
   }
 
   @Override
@@ -86,35 +148,72 @@ public class ShooterRotation extends SubsystemABC {
 
   public void setPIDTarget(double target) {
     setRotateTarget(target);
+    targetAngle = target;
+    followingPlan = false;
+    settleDetector.setTarget(target);
+  }
+
+  /**
+   * One setpoint of a planned move. {@code velocityOnArm} is in degrees per
+   * second relative to the arm, what the rotor sees, so it includes the arm's
+   * planned velocity.
+   */
+  public void setPlannedTarget(double target, double velocityOnArm) {
+    setRotateTarget(target);
+    targetAngle = target;
+    plannedVelocity = velocityOnArm;
+    followingPlan = true;
+    settleDetector.setTarget(target);
+  }
 
-    rotatePID.setSetpoint(target);
+  /** Predicted to have settled within {@code seconds}, so the next action can start. */
+  public boolean settlesWithin(double seconds) {
+    return settleDetector.settlesWithin(seconds);
   }
 
+  /** On target and settled. */
   public boolean pidAtSetpoint() {
-    return rotatePID.atSetpoint();
+    return Math.abs(getRotateTarget() - getEncoderAngle()) < ShooterConstants.RotationPIDForExternalEncoder.kRotateTolerance
+        && Math.abs(getRotateVelocity()) < ShooterConstants.RotationPIDForExternalEncoder.kRotateVelocityTolerance;
   }
 
+  /** Hands the pivot to closed-loop control on the current target; the control loop applies it. */
   public void rotateShooterPID() {
-    double currentAngle = getEncoderAngle();
-    if (currentAngle < -50 || currentAngle > 10) {
-      setFailure(true);
-    } else {
-      double output = rotatePID.calculate(currentAngle);
-      SmartDashboard.putNumber("current target", rotatePID.getSetpoint());
-      SmartDashboard.putNumber("current angle", getEncoderAngle());
-      SmartDashboard.putNumber("current output", output);
-      SmartDashboard.putNumber("current kP", rotatePID.getP());
-      SmartDashboard.putNumber("current kI", rotatePID.getI());
-      SmartDashboard.putNumber("current kD", rotatePID.getD());
-
-      setRotateVoltage(output); // positive direction is towards Intake, when it should be away from Intake
-    }
+    closedLoop = true;
+    pendingVoltage = Double.NaN;
+    SmartDashboard.putNumber("current target", getRotateTarget());
+    SmartDashboard.putNumber("current angle", getEncoderAngle());
+  }
+
+  @Override
+  public void sense() {
+    sensedArmAngle = currentArmRotationSupplier.getAsDouble();
+    shooterRotateEncoder.update();
+    sensedAngle = wrapAngle(shooterRotateEncoder.getAngle() - sensedArmAngle);
+    // the rotor turns with the pivot relative to the arm, the same frame as sensedAngle
+    rotorVelocity.refresh();
+    settleDetector.update(sensedAngle, rotorVelocity.getValueAsDouble() * 360);
   }
 
   @Override
-  public void periodic() {
-    // This method will be called once per scheduler run
-    writePeriodicOutputs();
+  public void control() {
+    if (!closedLoop) {
+      return;
+    }
+    if (sensedAngle < -50 || sensedAngle > 10) {
+      setFailure(true);
+      setRotateVoltage(0);
+      flushOutputs(); // out of range, don't wait for the scheduler
+    } else {
+      // re-sent every tick because the arm angle in the target moves with the arm
+      double targetOnArm = targetAngle + sensedArmAngle;
+      if (followingPlan) {
+        shooterRotate.setControl(plannedPosition.withPosition(targetOnArm / 360)
+            .withVelocity(plannedVelocity / 360).withFeedForward(getGravityFeedforward()));
+      } else {
+        shooterRotate.setControl(motionMagic.withPosition(targetOnArm / 360).withFeedForward(getGravityFeedforward()));
+      }
+    }
   }
 
   // GETTERS
@@ -134,14 +233,51 @@ public class ShooterRotation extends SubsystemABC {
     return encoderAngleWithoutOffset.get();
   }
 
+  /** Amps from the battery. */
+  public double getSupplyCurrent() {
+    return shooterRotate.getSupplyCurrent().getValueAsDouble();
+  }
+
   public double getEncoderAngle() {
     return encoderAngle.get();
   }
 
+  /**
+   * Saves the through bore offset that makes where the pivot is now read {@code angle}
+   * degrees, in the same arm-relative frame as {@link #getEncoderAngle()}.
+   */
+  public void calibrateEncoder(double angle) {
+    shooterRotateEncoder.calibrate(angle + currentArmRotationSupplier.getAsDouble());
+    rotorSeeded = false; // line the Talon up with the new offset straight away
+  }
+
   public boolean getFailure() {
     return failure.get();
   }
 
+  /**
+   * Volts that hold the shooter against gravity, from the pivot's angle to the
+   * floor so the holding torque follows the arm as well as the pivot.
+   */
+  public double getGravityFeedforward() {
+    return feedforward.calculate(
+        Math.toRadians(getWorldAngle() - ShooterConstants.RotationFeedforward.kHorizontalOffset), 0);
+  }
+
+  /**
+   * Pivot angle to the floor, in the arm's sense of rotation: the arm angle plus
+   * the pivot's angle on the arm as the arm would count it.
+   */
+  private double getWorldAngle() {
+    double pivotOnArm = sensedAngle + sensedArmAngle; // what the through bore and rotor read
+    return sensedArmAngle + ShooterConstants.RotationFeedforward.kPivotSense * pivotOnArm;
+  }
+
+  /** Degrees per second relative to the arm, from the rotor. */
+  public double getRotateVelocity() {
+    return rotorVelocity.getValueAsDouble() * 360;
+  }
+
   private final DoubleLogEntry rotateVoltageLog = new DoubleLogEntry(log, "/shooter/angle");
   private final DoubleLogEntry rotateTargetLog = new DoubleLogEntry(log, "/shooter/target");
   private final DoubleLogEntry encoderValueLog = new DoubleLogEntry(log, "/shooter/encoderValue");
@@ -151,11 +287,19 @@ public class ShooterRotation extends SubsystemABC {
   private final BooleanLogEntry failureLog = new BooleanLogEntry(log, "/shooter/failure");
 
   public void setRotateVoltage(double voltage) {
+    closedLoop = false;
     rotateVoltage.set(voltage);
     rotateVoltageLog.append(voltage);
+    pendingVoltage = voltage;
+  }
 
-    DutyCycleOut angleVolts = new DutyCycleOut(0);
-    shooterRotate.setControl(angleVolts.withOutput(voltage));
+  @Override
+  public void flushOutputs() {
+    if (Double.isNaN(pendingVoltage)) {
+      return;
+    }
+    shooterRotate.setControl(voltageOut.withOutput(pendingVoltage));
+    pendingVoltage = Double.NaN;
   }
 
   public void setRotateTarget(double target) {
@@ -169,36 +313,30 @@ public class ShooterRotation extends SubsystemABC {
   }
 
   public void readEncoderValue() {
-    double encoder = shooterRotateEncoder.get();
-    if(encoder < -340/360) {
-      encoder += 1;
-    } else if (encoder > 10/360) {
-      encoder -= 1;
-    }
+    double encoder = shooterRotateEncoder.getAngle() / 360;
     encoderValue.set(encoder);
     encoderValueLog.append(encoder);
   }
 
   public void readEncoderAngleWithoutOffset() {
-    double angle = encoderValue.get() * 360;
-    if(angle < -340) {
-      angle += 360;
-    } else if (angle > 10) {
-      angle -= 360;
-    }
+    double angle = shooterRotateEncoder.getAngle();
     encoderAngleWithoutOffset.set(angle);
     encoderAngleWithoutOffsetLog.append(angle);
   }
 
   public void readEncoderAngle() {
-    double angle = shooterRotateEncoder.get() * 360 - currentArmRotationSupplier.getAsDouble();
+    double angle = wrapAngle(shooterRotateEncoder.getAngle() - currentArmRotationSupplier.getAsDouble());
+    encoderAngle.set(angle);
+    encoderAngleLog.append(angle);
+  }
+
+  private static double wrapAngle(double angle) {
     if(angle < -340) {
       angle += 360;
     } else if (angle > 10) {
       angle -= 360;
     }
-    encoderAngle.set(angle);
-    encoderAngleLog.append(angle);
+    return angle;
   }
 
 }
@@ -38,11 +38,6 @@ public class ShooterServos extends SubsystemABC {
     seedNetworkTables();
   }
 
-  @Override
-  public void periodic() {
-    writePeriodicOutputs();
-  }
-
   @Override
   public void seedNetworkTables() {
     setThickSideSpeed(0.5);
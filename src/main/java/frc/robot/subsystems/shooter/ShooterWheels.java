@@ -4,20 +4,60 @@
 
 package frc.robot.subsystems.shooter;
 
+import com.ctre.phoenix6.BaseStatusSignal;
 import com.ctre.phoenix6.SignalLogger;
-import com.ctre.phoenix6.controls.DutyCycleOut;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.configs.CurrentLimitsConfigs;
+import com.ctre.phoenix6.configs.TorqueCurrentConfigs;
+import com.ctre.phoenix6.controls.ControlRequest;
 import com.ctre.phoenix6.controls.MotionMagicVelocityVoltage;
 import com.ctre.phoenix6.controls.StrictFollower;
+import com.ctre.phoenix6.controls.TorqueCurrentFOC;
 import com.ctre.phoenix6.controls.VelocityVoltage;
+import com.ctre.phoenix6.controls.VoltageOut;
 import com.ctre.phoenix6.hardware.TalonFX;
 
 import edu.wpi.first.networktables.DoubleEntry;
+import edu.wpi.first.util.datalog.BooleanLogEntry;
 import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.constants.CANConstants;
+import frc.robot.constants.ControlLoopConstants;
+import frc.robot.constants.PowerConstants;
 import frc.robot.constants.ShooterConstants;
+import frc.robot.constants.StallConstants;
+import frc.robot.constants.ThermalConstants;
 import frc.robot.subsystems.SubsystemABC;
+import frc.robot.utils.FlywheelLoop;
+import frc.robot.utils.MechanismControlLoop;
+import frc.robot.utils.StallDetector;
+import frc.robot.utils.ThermalModel;
+
+/**
+ * Shooter flywheels. Closed-loop velocity (setShootVelocityMotionMagic) runs
+ * either as Motion Magic on the Talons or as a {@link FlywheelLoop} per wheel in
+ * the {@link MechanismControlLoop}, picked with the "Flywheel controller"
+ * chooser on the shooter tab so the two can be compared on the robot.
+ *
+ * Either way, with {@link ShooterConstants.Boost#kEnabled} on a Pro-licensed
+ * robot, wheels well below target (spinning up, or dipped after a note) are
+ * boosted with full torque current until they're close, then handed back to
+ * velocity control. Voltage control tops out at the 90 % peak output and tapers
+ * as the wheels approach the target, so the boost gets there sooner. A boost
+ * that runs out of time isn't repeated until the wheels catch up or the target
+ * moves. With or without the boost, the time to reach each new target and to
+ * recover from each shot is logged to /shooter/timeToSpeed.
+ */
+public class ShooterWheels extends SubsystemABC implements MechanismControlLoop.Controller {
+  public enum VelocityController {
+    MOTION_MAGIC,
+    STATE_SPACE,
+  }
 
-public class ShooterWheels extends SubsystemABC {
   // Motors
   private final TalonFX shooterTopMain; // Falcon
   private final TalonFX shooterBottomFollower; // Falcon
@@ -25,8 +65,60 @@ public class ShooterWheels extends SubsystemABC {
   private final DoubleEntry shootVelocity;
   private final DoubleEntry shootVoltage;
   private final DoubleEntry shootVoltageMotionMagic;
+  private final DoubleEntry measuredVelocity;
+
+  private final StatusSignal<Double> velocitySignal;
+  private final StatusSignal<Double> accelerationSignal;
+  private final StatusSignal<Double> bottomVelocitySignal;
+  private final StatusSignal<Double> bottomAccelerationSignal;
+  private final StatusSignal<Double> motorVoltageSignal;
+  private final StatusSignal<Double> statorCurrentSignal;
+  private final StatusSignal<Double> bottomStatorCurrentSignal;
+  private final StatusSignal<Double> topTemperatureSignal;
+  private final StatusSignal<Double> bottomTemperatureSignal;
+
+  private final ThermalModel topThermal = new ThermalModel("Shooter top", ThermalConstants.kFalconResistance);
+  private final ThermalModel bottomThermal = new ThermalModel("Shooter bottom", ThermalConstants.kFalconResistance);
+  private double idleScale = 1;
+  private double currentScale = 1;
+  private double supplyLimit = Double.NaN; // per motor, from the CurrentBudget
+  private final StallDetector stallDetector = new StallDetector("ShooterWheels", StallConstants.ShooterWheels.kWindow,
+      StallConstants.ShooterWheels.kMinOutput, StallConstants.ShooterWheels.kMinCurrent,
+      StallConstants.ShooterWheels.kMaxVelocity);
+  private double velocityTarget = 0;
+  private boolean velocityClosedLoop = false;
+
+  private final SendableChooser<VelocityController> controllerChooser = new SendableChooser<>();
+  private VelocityController activeController = VelocityController.MOTION_MAGIC;
+  private final FlywheelLoop topLoop = new FlywheelLoop();
+  private final FlywheelLoop bottomLoop = new FlywheelLoop();
+  private final VoltageOut topStateSpaceOut = new VoltageOut(0);
+  private final VoltageOut bottomStateSpaceOut = new VoltageOut(0);
+  private boolean stateSpaceActive = false;
+
+  private final TorqueCurrentFOC boostOut = new TorqueCurrentFOC(0);
+  private final boolean boostAvailable;
+  private boolean boosting = false;
+  private double boostStartTime = 0;
+  // after a boost, no new one until the wheels catch up or the target moves, so a stuck
+  // wheel can't be boosted over and over
+  private boolean boostLockedOut = false;
+  private double boostLockoutTarget = 0;
+  private double shotTime = Double.NEGATIVE_INFINITY;
+  // time to speed, from a new target or a feed until the wheels are back in tolerance
+  private double timeToSpeedStart = Double.NaN;
+  private boolean awaitingShotDip = false; // a feed only counts once the note has pulled the wheels off speed
+
+  // control loop snapshot
+  private double sensedTopVelocity = 0;
+  private double sensedBottomVelocity = 0;
 
   private final MotionMagicVelocityVoltage motionMagic = new MotionMagicVelocityVoltage(0);
+  private final VelocityVoltage velocityOut = new VelocityVoltage(0);
+  private final VoltageOut voltageOut = new VoltageOut(0);
+  // last request set this loop, sent once in flushOutputs() so the default
+  // command and a shot command don't both hit the CAN bus in the same loop
+  private ControlRequest pendingRequest = null;
 
   public ShooterWheels() {
     super();
@@ -35,6 +127,25 @@ public class ShooterWheels extends SubsystemABC {
     shooterTopMain.getConfigurator().apply(ShooterConstants.GetWheelsConfiguration());
     shooterBottomFollower.getConfigurator().apply(ShooterConstants.GetWheelsConfiguration());
 //    shooterBottomFollower.setControl(new StrictFollower(shooterTopMain.getDeviceID()));
+    velocitySignal = shooterTopMain.getVelocity();
+    accelerationSignal = shooterTopMain.getAcceleration();
+    bottomVelocitySignal = shooterBottomFollower.getVelocity();
+    bottomAccelerationSignal = shooterBottomFollower.getAcceleration();
+    motorVoltageSignal = shooterTopMain.getMotorVoltage();
+    statorCurrentSignal = shooterTopMain.getStatorCurrent();
+    bottomStatorCurrentSignal = shooterBottomFollower.getStatorCurrent();
+    topTemperatureSignal = shooterTopMain.getDeviceTemp();
+    bottomTemperatureSignal = shooterBottomFollower.getDeviceTemp();
+    // without a Pro licence TorqueCurrentFOC gives no output at all
+    boostAvailable = ShooterConstants.Boost.kEnabled
+        && shooterTopMain.getIsProLicensed().waitForUpdate(ShooterConstants.Boost.kLicenceTimeout).getValue()
+        && shooterBottomFollower.getIsProLicensed().waitForUpdate(ShooterConstants.Boost.kLicenceTimeout).getValue();
+    if (ShooterConstants.Boost.kEnabled && !boostAvailable) {
+      DriverStation.reportWarning("ShooterWheels: no Phoenix Pro licence, boost is off", false);
+    }
+    // the state-space loop reads these every control loop tick
+    BaseStatusSignal.setUpdateFrequencyForAll(1 / ControlLoopConstants.kPeriod, velocitySignal, accelerationSignal,
+        bottomVelocitySignal, bottomAccelerationSignal);
 
     SignalLogger.start();
     SignalLogger.setPath("/media/sda1/ctre-logs/");
@@ -43,6 +154,7 @@ public class ShooterWheels extends SubsystemABC {
     shootVelocity = ntTable.getDoubleTopic("shoot_velocity").getEntry(0);
     shootVoltage = ntTable.getDoubleTopic("shoot_voltage").getEntry(0);
     shootVoltageMotionMagic = ntTable.getDoubleTopic("shoot_voltage_motion_magic").getEntry(0);
+    measuredVelocity = ntTable.getDoubleTopic("measured_velocity").getEntry(0);
  
     setupShuffleboard();
     seedNetworkTables();
@@ -52,11 +164,107 @@ public class ShooterWheels extends SubsystemABC {
   public void setupShuffleboard() {
     tab.add("shooter top main", shooterTopMain);
     tab.add("shooter botom follower", shooterBottomFollower);
+
+    controllerChooser.setDefaultOption("Motion Magic", VelocityController.MOTION_MAGIC);
+    controllerChooser.addOption("State space", VelocityController.STATE_SPACE);
+    tab.add("Flywheel controller", controllerChooser);
   }
 
   @Override
   public void writePeriodicOutputs() {
-    // no encoder
+    readMeasuredVelocity();
+    readStall();
+    readThermal();
+  }
+
+  /*
+   * Two derating stages off the hotter wheel: the prespool idle speed drops first,
+   * then the stator and boost current limits come down.
+   */
+  public void readThermal() {
+    BaseStatusSignal.refreshAll(statorCurrentSignal, bottomStatorCurrentSignal, topTemperatureSignal,
+        bottomTemperatureSignal);
+    topThermal.update(statorCurrentSignal.getValueAsDouble(), topTemperatureSignal.getValueAsDouble());
+    bottomThermal.update(bottomStatorCurrentSignal.getValueAsDouble(), bottomTemperatureSignal.getValueAsDouble());
+    topThermal.publishHeadroom(ThermalConstants.ShooterCurrent.kEnd);
+    bottomThermal.publishHeadroom(ThermalConstants.ShooterCurrent.kEnd);
+    double hottest = Math.max(topThermal.getTemperature(), bottomThermal.getTemperature());
+
+    idleScale = ThermalModel.derate(hottest, ThermalConstants.ShooterIdle.kStart, ThermalConstants.ShooterIdle.kEnd,
+        ThermalConstants.ShooterIdle.kMinScale);
+
+    double scale = ThermalModel.derate(hottest, ThermalConstants.ShooterCurrent.kStart,
+        ThermalConstants.ShooterCurrent.kEnd, ThermalConstants.ShooterCurrent.kMinScale);
+    if (scale != currentScale) {
+      TorqueCurrentConfigs torque = new TorqueCurrentConfigs()
+          .withPeakForwardTorqueCurrent(ShooterConstants.Boost.kCurrent * scale)
+          .withPeakReverseTorqueCurrent(-ShooterConstants.Boost.kCurrent * scale);
+      shooterTopMain.getConfigurator().apply(torque, CANConstants.kRuntimeConfigTimeout);
+      shooterBottomFollower.getConfigurator().apply(torque, CANConstants.kRuntimeConfigTimeout);
+      currentScale = scale;
+      applyCurrentLimits();
+      SmartDashboard.putNumber("Thermal/shooter current scale", scale);
+    }
+  }
+
+  /** Shares a supply current limit, in amps, between the two wheels. */
+  public void setSupplyCurrentLimit(double amps) {
+    supplyLimit = amps / 2;
+    applyCurrentLimits();
+  }
+
+  private void applyCurrentLimits() {
+    CurrentLimitsConfigs limits = new CurrentLimitsConfigs()
+        .withStatorCurrentLimit(ThermalConstants.ShooterCurrent.kStatorLimit * currentScale)
+        .withStatorCurrentLimitEnable(true);
+    if (!Double.isNaN(supplyLimit)) {
+      limits.withSupplyCurrentLimit(supplyLimit).withSupplyCurrentLimitEnable(true);
+    }
+    shooterTopMain.getConfigurator().apply(limits, CANConstants.kRuntimeConfigTimeout);
+    shooterBottomFollower.getConfigurator().apply(limits, CANConstants.kRuntimeConfigTimeout);
+  }
+
+  /** Spinning up or boosting, when the wheels should get the bigger share of the current budget. */
+  public boolean isSpinningUp() {
+    return isBoosting() || (velocityTarget != 0
+        && Math.abs(getVelocityError()) > PowerConstants.Budget.Shooter.kSpinUpError);
+  }
+
+  /** Amps from the battery, both wheels. */
+  public double getSupplyCurrent() {
+    return shooterTopMain.getSupplyCurrent().getValueAsDouble()
+        + shooterBottomFollower.getSupplyCurrent().getValueAsDouble();
+  }
+
+  /** How much of the prespool idle speed the wheels can take right now, 1 when cool. */
+  public double getIdleScale() {
+    return idleScale;
+  }
+
+  /** A note wedged in the wheels. */
+  public Trigger stalled() {
+    return stallDetector.stalled();
+  }
+
+  public void readStall() {
+    BaseStatusSignal.refreshAll(motorVoltageSignal, statorCurrentSignal);
+    stallDetector.record(motorVoltageSignal.getValueAsDouble(), statorCurrentSignal.getValueAsDouble(),
+        getMeasuredVelocity());
+  }
+
+  @Override
+  public void flushOutputs() {
+    if (pendingRequest == null) {
+      return;
+    }
+    if (boosting) {
+      // the boost hands back to the latest target when it's done
+      pendingRequest = null;
+      return;
+    }
+    shooterTopMain.setControl(pendingRequest);
+    shooterBottomFollower.setControl(pendingRequest);
+    pendingRequest = null;
   }
 
   @Override
@@ -73,7 +281,134 @@ public class ShooterWheels extends SubsystemABC {
   @Override
   public void periodic() {
     // This method will be called once per scheduler run
-    writePeriodicOutputs();
+
+    VelocityController selected = controllerChooser.getSelected();
+    if (selected != null && selected != activeController) {
+      activeController = selected;
+      if (velocityClosedLoop) {
+        setShootVelocityMotionMagic(velocityTarget); // hand the current target to the new controller
+      }
+    }
+  }
+
+  @Override
+  public void sense() {
+    BaseStatusSignal.refreshAll(velocitySignal, accelerationSignal, bottomVelocitySignal, bottomAccelerationSignal);
+    sensedTopVelocity = BaseStatusSignal.getLatencyCompensatedValue(velocitySignal, accelerationSignal);
+    sensedBottomVelocity = BaseStatusSignal.getLatencyCompensatedValue(bottomVelocitySignal, bottomAccelerationSignal);
+  }
+
+  @Override
+  public void control() {
+    updateTimeToSpeed();
+    updateBoost();
+    if (boosting || !stateSpaceActive) {
+      return;
+    }
+    shooterTopMain.setControl(topStateSpaceOut.withOutput(topLoop.calculate(velocityTarget, sensedTopVelocity)));
+    shooterBottomFollower.setControl(
+        bottomStateSpaceOut.withOutput(bottomLoop.calculate(velocityTarget, sensedBottomVelocity)));
+  }
+
+  /** Tells the wheels a note is being fed, so the dip it causes is boosted straight away. */
+  public void notifyShot() {
+    shotTime = Timer.getFPGATimestamp();
+    if (velocityClosedLoop && velocityTarget != 0) {
+      timeToSpeedStart = shotTime;
+      awaitingShotDip = true;
+    }
+  }
+
+  // positive while the wheels need speeding up, in either spin direction
+  private double getShortfall() {
+    return velocityClosedLoop ? (velocityTarget - sensedTopVelocity) * Math.signum(velocityTarget) : 0;
+  }
+
+  /** Logs how long the wheels took to reach a new target, or to recover from a shot, boost or not. */
+  private void updateTimeToSpeed() {
+    if (Double.isNaN(timeToSpeedStart)) {
+      return;
+    }
+    double now = Timer.getFPGATimestamp();
+    boolean inTolerance = Math.abs(getShortfall()) < ShooterConstants.Readiness.kWheelVelocityTolerance;
+    if (awaitingShotDip) {
+      if (!inTolerance) {
+        awaitingShotDip = false;
+      } else if (now - timeToSpeedStart > ShooterConstants.Boost.kShotWindow) {
+        timeToSpeedStart = Double.NaN; // the note never knocked the wheels off speed
+        awaitingShotDip = false;
+      }
+      return;
+    }
+    if (inTolerance) {
+      double timeToSpeed = now - timeToSpeedStart;
+      timeToSpeedLog.append(timeToSpeed);
+      SmartDashboard.putNumber("Shooter/time to speed", timeToSpeed);
+      timeToSpeedStart = Double.NaN;
+    }
+  }
+
+  private void updateBoost() {
+    double now = Timer.getFPGATimestamp();
+    double shortfall = getShortfall();
+
+    if (boosting) {
+      if (shortfall < ShooterConstants.Boost.kExitError || now - boostStartTime > ShooterConstants.Boost.kMaxTime) {
+        endBoost();
+      }
+      return;
+    }
+
+    if (boostLockedOut && (shortfall < ShooterConstants.Boost.kExitError
+        || Math.abs(velocityTarget - boostLockoutTarget) > ShooterConstants.Boost.kDipError)) {
+      boostLockedOut = false;
+    }
+    if (!boostAvailable || boostLockedOut || !velocityClosedLoop || velocityTarget == 0) {
+      return;
+    }
+    boolean shotExpected = now - shotTime < ShooterConstants.Boost.kShotWindow;
+    double threshold = shotExpected ? ShooterConstants.Boost.kShotError : ShooterConstants.Boost.kDipError;
+    if (shortfall > threshold) {
+      boosting = true;
+      boostStartTime = now;
+      boostLog.append(true);
+      double current = Math.copySign(ShooterConstants.Boost.kCurrent, velocityTarget);
+      shooterTopMain.setControl(boostOut.withOutput(current));
+      shooterBottomFollower.setControl(boostOut.withOutput(current));
+    }
+  }
+
+  private void endBoost() {
+    boosting = false;
+    boostLockedOut = true;
+    boostLockoutTarget = velocityTarget;
+    boostLog.append(false);
+    if (stateSpaceActive) {
+      topLoop.reset(sensedTopVelocity);
+      bottomLoop.reset(sensedBottomVelocity);
+    } else {
+      motionMagic.Slot = 0;
+      shooterTopMain.setControl(motionMagic.withVelocity(velocityTarget));
+      shooterBottomFollower.setControl(motionMagic.withVelocity(velocityTarget));
+    }
+  }
+
+  // any other output takes over from a boost straight away
+  private void cancelBoost() {
+    if (boosting) {
+      boosting = false;
+      boostLog.append(false);
+    }
+    timeToSpeedStart = Double.NaN;
+    awaitingShotDip = false;
+  }
+
+  public boolean isBoosting() {
+    return boosting;
+  }
+
+  public VelocityController getActiveController() {
+    return activeController;
   }
 
   // GETTERS
@@ -89,36 +424,88 @@ public class ShooterWheels extends SubsystemABC {
     return shootVoltageMotionMagic.get();
   }
 
+  public double getMeasuredVelocity() {
+    return measuredVelocity.get();
+  }
+
+  /**
+   * Velocity target minus measured velocity, in rotations per second. Measured
+   * against the final target rather than the Talon's closed-loop error, because
+   * with Motion Magic that error is against the ramp and is small while the wheels
+   * are still spinning up.
+   */
+  public double getVelocityError() {
+    return velocityTarget - getMeasuredVelocity();
+  }
+
+  public boolean atSpeed() {
+    return velocityTarget != 0
+        && Math.abs(getVelocityError()) < ShooterConstants.Readiness.kWheelVelocityTolerance;
+  }
+
   private final DoubleLogEntry shootVelocityLog = new DoubleLogEntry(log, "/shooter/velocity");
   private final DoubleLogEntry shootVoltageLog = new DoubleLogEntry(log, "/shooter/voltage");
   private final DoubleLogEntry shootVelocityMotionMagicLog = new DoubleLogEntry(log, "/shooter/velocityMotionMagic");
+  private final DoubleLogEntry measuredVelocityLog = new DoubleLogEntry(log, "/shooter/measuredVelocity");
+  private final DoubleLogEntry timeToSpeedLog = new DoubleLogEntry(log, "/shooter/timeToSpeed");
+  private final BooleanLogEntry boostLog = new BooleanLogEntry(log, "/shooter/boost");
 
   // SETTERS
   public void setShootVelocity(double velocity) {
     shootVelocity.set(velocity);
     shootVelocityLog.append(velocity);
+    velocityTarget = velocity;
+    velocityClosedLoop = false;
+    stateSpaceActive = false;
+    cancelBoost();
 
-    VelocityVoltage velocityOut = new VelocityVoltage(0);
     velocityOut.Slot = 0;
-    shooterTopMain.setControl(velocityOut.withVelocity(velocity));
-    shooterBottomFollower.setControl(velocityOut.withVelocity(velocity));
+    pendingRequest = velocityOut.withVelocity(velocity);
   }
 
   public void setShootVelocityMotionMagic(double velocity) {
     shootVoltageMotionMagic.set(velocity);
     shootVelocityMotionMagicLog.append(velocity);
+    if (velocity == 0) {
+      timeToSpeedStart = Double.NaN;
+    } else if (velocity != velocityTarget || !velocityClosedLoop) {
+      timeToSpeedStart = Timer.getFPGATimestamp();
+    }
+    if (velocity != velocityTarget || !velocityClosedLoop) {
+      awaitingShotDip = false;
+    }
+    velocityTarget = velocity;
+    velocityClosedLoop = true;
+
+    if (activeController == VelocityController.STATE_SPACE && velocity != 0) {
+      if (!stateSpaceActive) {
+        topLoop.reset(sensedTopVelocity);
+        bottomLoop.reset(sensedBottomVelocity);
+        stateSpaceActive = true;
+      }
+      pendingRequest = null; // the control loop drives the Talons from here
+      return;
+    }
+    stateSpaceActive = false;
 
     motionMagic.Slot = 0;
-    shooterTopMain.setControl(motionMagic.withVelocity(velocity));
-    shooterBottomFollower.setControl(motionMagic.withVelocity(velocity));
+    pendingRequest = motionMagic.withVelocity(velocity);
   }
 
   public void setShootVoltage(double voltage) {
     shootVoltage.set(voltage);
     shootVoltageLog.append(voltage);
+    velocityTarget = 0;
+    velocityClosedLoop = false;
+    stateSpaceActive = false;
+    cancelBoost();
+
+    pendingRequest = voltageOut.withOutput(voltage);
+  }
 
-    DutyCycleOut voltageOut = new DutyCycleOut(0);
-    shooterTopMain.setControl(voltageOut.withOutput(voltage));
-    shooterBottomFollower.setControl(voltageOut.withOutput(voltage));
+  public void readMeasuredVelocity() {
+    double velocity = velocitySignal.refresh().getValue();
+    measuredVelocity.set(velocity);
+    measuredVelocityLog.append(velocity);
   }
 }
@@ -0,0 +1,96 @@
+package frc.robot.subsystems.shooter;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.constants.FieldConstants;
+import frc.robot.constants.ShooterConstants;
+import frc.robot.subsystems.swerve.CommandSwerveDrivetrain;
+import frc.robot.utils.ShotMap;
+import frc.robot.utils.ShotMap.ShotSolution;
+
+/**
+ * Shot solution for shooting while the robot is moving.
+ *
+ * A note leaves with the robot's field velocity, so aiming at the speaker itself
+ * misses by {@code v * timeOfFlight}. Instead the shot is aimed at a virtual
+ * target, the speaker shifted by {@code -v * timeOfFlight}. Time of flight depends
+ * on distance, which depends on the virtual target, so this is iterated a few
+ * times; it converges quickly because time of flight changes slowly with distance.
+ * Pivot angle and wheel speed come from the {@link ShotMap} at the virtual
+ * distance. Runs once per loop off the fused drivetrain pose.
+ */
+public class ShotSolver extends SubsystemBase {
+  private final CommandSwerveDrivetrain drivetrain;
+  private final ShotMap shotMap;
+  private final ShotSolution solution = new ShotSolution();
+
+  private double distance;
+  private double pivotAngle;
+  private double wheelSpeed;
+  private Rotation2d heading = new Rotation2d();
+
+  public ShotSolver(CommandSwerveDrivetrain drivetrain, ShotMap shotMap) {
+    this.drivetrain = drivetrain;
+    this.shotMap = shotMap;
+  }
+
+  @Override
+  public void periodic() {
+    Pose2d pose = drivetrain.getPose();
+    ChassisSpeeds robotSpeeds = drivetrain.getCurrentRobotChassisSpeeds();
+    Translation2d fieldVelocity = new Translation2d(robotSpeeds.vxMetersPerSecond, robotSpeeds.vyMetersPerSecond)
+        .rotateBy(pose.getRotation());
+
+    Translation2d speaker = getSpeaker();
+    Translation2d virtualTarget = speaker;
+    for (int i = 0; i < ShooterConstants.ShootOnTheMove.kSolverIterations; i++) {
+      double timeOfFlight = shotMap.getTimeOfFlight(virtualTarget.getDistance(pose.getTranslation()));
+      virtualTarget = speaker.minus(fieldVelocity.times(timeOfFlight));
+    }
+
+    Translation2d toTarget = virtualTarget.minus(pose.getTranslation());
+    distance = toTarget.getNorm();
+    shotMap.get(distance, solution);
+    pivotAngle = solution.angle;
+    wheelSpeed = solution.speed;
+    // the shooter faces the back of the robot, and the map's heading offset is in degrees
+    heading = toTarget.getAngle()
+        .plus(Rotation2d.fromDegrees(ShooterConstants.ShootOnTheMove.kShooterFacingDegrees + solution.headingOffset));
+
+    SmartDashboard.putNumber("ShotSolver/distance", distance);
+    SmartDashboard.putNumber("ShotSolver/pivot angle", pivotAngle);
+    SmartDashboard.putNumber("ShotSolver/wheel speed", wheelSpeed);
+    SmartDashboard.putNumber("ShotSolver/heading", heading.getDegrees());
+    SmartDashboard.putNumberArray("ShotSolver/virtual target",
+        new double[] { virtualTarget.getX(), virtualTarget.getY() });
+  }
+
+  public double getDistance() {
+    return distance;
+  }
+
+  public double getPivotAngle() {
+    return pivotAngle;
+  }
+
+  public double getWheelSpeed() {
+    return wheelSpeed;
+  }
+
+  /** Field-relative robot heading that points the shooter at the virtual target. */
+  public Rotation2d getHeading() {
+    return heading;
+  }
+
+  private Translation2d getSpeaker() {
+    return DriverStation.getAlliance().orElse(Alliance.Blue) == Alliance.Red
+        ? FieldConstants.kRedSpeaker
+        : FieldConstants.kBlueSpeaker;
+  }
+}
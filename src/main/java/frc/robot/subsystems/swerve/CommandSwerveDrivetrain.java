@@ -1,9 +1,12 @@
 package frc.robot.subsystems.swerve;
 
+import java.util.Optional;
 import java.util.function.Supplier;
 
+import com.ctre.phoenix6.BaseStatusSignal;
 import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.Utils;
+import com.ctre.phoenix6.configs.CurrentLimitsConfigs;
 import com.ctre.phoenix6.mechanisms.swerve.SwerveDrivetrain;
 import com.ctre.phoenix6.mechanisms.swerve.SwerveDrivetrainConstants;
 import com.ctre.phoenix6.mechanisms.swerve.SwerveModuleConstants;
@@ -16,18 +19,32 @@ import com.pathplanner.lib.util.PIDConstants;
 import com.pathplanner.lib.util.ReplanningConfig;
 
 import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.interpolation.TimeInterpolatableBuffer;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import edu.wpi.first.wpilibj.Notifier;
 import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Subsystem;
 import com.ctre.phoenix6.hardware.Pigeon2;
+
+import frc.robot.constants.CANConstants;
+import frc.robot.constants.CameraConstants;
+import frc.robot.constants.PowerConstants;
+import frc.robot.constants.SwerveConstants;
+import frc.robot.constants.ThermalConstants;
 // import frc.robot.subsystems.swerve.generated.TunerConstants;
 import frc.robot.subsystems.swerve.generated.TunerConstants;
+import frc.robot.utils.ThermalModel;
 
 /**
  * Class that extends the Phoenix SwerveDrivetrain class and implements
@@ -36,6 +53,7 @@ import frc.robot.subsystems.swerve.generated.TunerConstants;
  */
 public class CommandSwerveDrivetrain extends SwerveDrivetrain implements Subsystem {
     private static final double kSimLoopPeriod = 0.005; // 5 ms
+    private static final double kPoseHistorySeconds = 1.5;
     private static Pigeon2 pigeon = new Pigeon2(0);
     private Notifier m_simNotifier = null;
     private double m_lastSimTime;
@@ -45,6 +63,16 @@ public class CommandSwerveDrivetrain extends SwerveDrivetrain implements Subsyst
 
     private final SwerveRequest.ApplyChassisSpeeds autoRequest = new SwerveRequest.ApplyChassisSpeeds();
 
+    /* Recent poses so camera frames can be matched to where the robot was when they were captured */
+    private final TimeInterpolatableBuffer<Pose2d> poseHistory = TimeInterpolatableBuffer.createBuffer(kPoseHistorySeconds);
+
+    /* AprilTag Limelight pose, fused into odometry */
+    private final NetworkTable aprilTagTable = NetworkTableInstance.getDefault()
+            .getTable(CameraConstants.BackCam.BACK_CAMERA_NETWORK_TABLES_NAME);
+    private final NetworkTableEntry botposeEntry = aprilTagTable.getEntry("botpose_wpiblue");
+    private static final double[] kNoBotpose = new double[0];
+    private long lastBotposeChange = 0;
+
     /* Blue alliance sees forward as 0 degrees (toward red alliance wall) */
     private final Rotation2d BlueAlliancePerspectiveRotation = Rotation2d.fromDegrees(0);
     /* Red alliance sees forward as 180 degrees (toward blue alliance wall) */
@@ -52,10 +80,19 @@ public class CommandSwerveDrivetrain extends SwerveDrivetrain implements Subsyst
     /* Keep track if we've ever applied the operator perspective before or not */
     private boolean hasAppliedOperatorPerspective = false;
 
+    /* Drive motor temperatures; the drive is the last thing derated when the robot runs hot */
+    private ThermalModel[] driveThermal;
+    private StatusSignal<Double>[] driveTemperature;
+    private StatusSignal<Double>[] driveCurrent;
+    private double driveStatorLimit;
+    private double driveCurrentScale = 1;
+    private double driveSupplyLimit = Double.NaN; // per motor, from the CurrentBudget
+
     public CommandSwerveDrivetrain(SwerveDrivetrainConstants driveTrainConstants, double OdometryUpdateFrequency,
             SwerveModuleConstants... modules) {
 
         super(driveTrainConstants, OdometryUpdateFrequency, modules);
+        setupThermal(modules);
         configurePathPlanner();
         if (Utils.isSimulation()) {
             startSimThread();
@@ -65,6 +102,7 @@ public class CommandSwerveDrivetrain extends SwerveDrivetrain implements Subsyst
 
     public CommandSwerveDrivetrain(SwerveDrivetrainConstants driveTrainConstants, SwerveModuleConstants... modules) {
         super(driveTrainConstants, modules);
+        setupThermal(modules);
         configurePathPlanner();
         if (Utils.isSimulation()) {
             startSimThread();
@@ -72,6 +110,83 @@ public class CommandSwerveDrivetrain extends SwerveDrivetrain implements Subsyst
         setupPIDController();
     }
 
+    @SuppressWarnings("unchecked")
+    private void setupThermal(SwerveModuleConstants... modules) {
+        driveStatorLimit = modules[0].SlipCurrent;
+        driveThermal = new ThermalModel[modules.length];
+        driveTemperature = new StatusSignal[modules.length];
+        driveCurrent = new StatusSignal[modules.length];
+        for (int i = 0; i < modules.length; i++) {
+            driveThermal[i] = new ThermalModel("Drive " + i, ThermalConstants.kFalconResistance);
+            driveTemperature[i] = getModule(i).getDriveMotor().getDeviceTemp();
+            driveCurrent[i] = getModule(i).getDriveMotor().getStatorCurrent();
+        }
+    }
+
+    /** Amps from the battery, all drive motors. */
+    public double getDriveSupplyCurrent() {
+        double total = 0;
+        for (int i = 0; i < ModuleCount; i++) {
+            total += getModule(i).getDriveMotor().getSupplyCurrent().getValueAsDouble();
+        }
+        return total;
+    }
+
+    /*
+     * Trims the drive motors' stator limit (the slip current) once the hottest one
+     * gets into the drive derating stage.
+     */
+    private void updateThermal() {
+        double hottest = ThermalConstants.kAmbient;
+        for (int i = 0; i < driveThermal.length; i++) {
+            BaseStatusSignal.refreshAll(driveTemperature[i], driveCurrent[i]);
+            driveThermal[i].update(driveCurrent[i].getValueAsDouble(), driveTemperature[i].getValueAsDouble());
+            driveThermal[i].publishHeadroom(ThermalConstants.DriveCurrent.kEnd);
+            hottest = Math.max(hottest, driveThermal[i].getTemperature());
+        }
+
+        double scale = ThermalModel.derate(hottest, ThermalConstants.DriveCurrent.kStart,
+                ThermalConstants.DriveCurrent.kEnd, ThermalConstants.DriveCurrent.kMinScale);
+        if (scale != driveCurrentScale) {
+            driveCurrentScale = scale;
+            applyDriveCurrentLimits();
+            SmartDashboard.putNumber("Thermal/drive current scale", scale);
+        }
+    }
+
+    /** Shares a supply current limit, in amps, between the drive motors. */
+    public void setDriveSupplyCurrentLimit(double amps) {
+        driveSupplyLimit = amps / ModuleCount;
+        applyDriveCurrentLimits();
+    }
+
+    private void applyDriveCurrentLimits() {
+        CurrentLimitsConfigs limits = new CurrentLimitsConfigs()
+                .withStatorCurrentLimit(driveStatorLimit * driveCurrentScale)
+                .withStatorCurrentLimitEnable(true);
+        if (!Double.isNaN(driveSupplyLimit)) {
+            limits.withSupplyCurrentLimit(driveSupplyLimit).withSupplyCurrentLimitEnable(true);
+        }
+        for (int i = 0; i < ModuleCount; i++) {
+            getModule(i).getDriveMotor().getConfigurator().apply(limits, CANConstants.kRuntimeConfigTimeout);
+        }
+    }
+
+    /** Driving fast enough that the drive should get the bigger share of the current budget. */
+    public boolean isSprinting() {
+        SwerveModuleState[] targets = getState().ModuleTargets;
+        if (targets == null) {
+            return false;
+        }
+        for (SwerveModuleState target : targets) {
+            if (Math.abs(target.speedMetersPerSecond) > PowerConstants.Budget.Drive.kSprintFraction
+                    * SwerveConstants.MaxSpeed) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public void setupPIDController() {
         pid.setTolerance(1); // allowable angle error
         pid.enableContinuousInput(0, 360); // it is faster to go 1 degree from 359 to 0 instead of 359 degrees
@@ -95,6 +210,19 @@ public class CommandSwerveDrivetrain extends SwerveDrivetrain implements Subsyst
         return new PathPlannerAuto(pathName);
     }
 
+    public Pose2d getPose() {
+        return getState().Pose;
+    }
+
+    /**
+     * Pose at an earlier FPGA timestamp, interpolated from the pose history.
+     * Falls back to the current pose if the timestamp is older than the history.
+     */
+    public Pose2d getPoseAt(double timestamp) {
+        Optional<Pose2d> pose = poseHistory.getSample(timestamp);
+        return pose.orElseGet(this::getPose);
+    }
+
     public ChassisSpeeds getCurrentRobotChassisSpeeds() {
         return m_kinematics.toChassisSpeeds(getState().ModuleStates);
     }
@@ -145,8 +273,37 @@ public class CommandSwerveDrivetrain extends SwerveDrivetrain implements Subsyst
         m_simNotifier.startPeriodic(kSimLoopPeriod);
     }
 
+    /**
+     * Fuses the AprilTag camera's field pose into odometry, timestamped at frame
+     * capture. Skips repeated frames, frames with no solve and frames taken while
+     * spinning fast (motion blur).
+     */
+    private void addLimelightMeasurement() {
+        long lastChange = botposeEntry.getLastChange();
+        if (lastChange == lastBotposeChange || aprilTagTable.getEntry("tv").getDouble(0) != 1) {
+            return;
+        }
+        lastBotposeChange = lastChange;
+
+        // [x, y, z, roll, pitch, yaw, total latency ms, tag count, ...]
+        double[] botpose = botposeEntry.getDoubleArray(kNoBotpose);
+        if (botpose.length < 7 || (botpose[0] == 0 && botpose[1] == 0)) {
+            return;
+        }
+        if (Math.abs(getCurrentRobotChassisSpeeds().omegaRadiansPerSecond) > SwerveConstants.kMaxVisionFusionOmega) {
+            return;
+        }
+
+        Pose2d visionPose = new Pose2d(botpose[0], botpose[1], Rotation2d.fromDegrees(botpose[5]));
+        addVisionMeasurement(visionPose, Timer.getFPGATimestamp() - botpose[6] / 1000.0);
+    }
+
     @Override
     public void periodic() {
+        addLimelightMeasurement();
+        updateThermal();
+        poseHistory.addSample(Timer.getFPGATimestamp(), getPose());
+
         /* Periodically try to apply the operator perspective */
         /*
          * If we haven't applied the operator perspective before, then we should apply
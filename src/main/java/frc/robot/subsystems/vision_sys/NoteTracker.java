@@ -0,0 +1,111 @@
+package frc.robot.subsystems.vision_sys;
+
+import java.util.Optional;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.constants.CameraConstants;
+import frc.robot.subsystems.swerve.CommandSwerveDrivetrain;
+
+/**
+ * Turns note detections from the note camera into a field-relative position.
+ *
+ * Each frame is projected onto the floor using the camera mounting in
+ * {@link CameraConstants.FrontCam} and the drivetrain pose at the moment the frame
+ * was captured (not the pose now), so the note stays put on the field while the
+ * robot moves. The last position is remembered for a short time so a note that
+ * drops out of view for a few frames is still a valid target.
+ */
+public class NoteTracker extends SubsystemBase {
+    private final CommandSwerveDrivetrain drivetrain;
+    private final NetworkTable table;
+
+    private final Translation2d cameraOnRobot = new Translation2d(
+            CameraConstants.FrontCam.kCameraForwardMeters, CameraConstants.FrontCam.kCameraLeftMeters);
+    private final Rotation2d cameraYaw = Rotation2d.fromDegrees(CameraConstants.FrontCam.kCameraYawDegrees);
+
+    private Translation2d note = null;
+    private double lastSeenTime = Double.NEGATIVE_INFINITY;
+
+    public NoteTracker(CommandSwerveDrivetrain drivetrain) {
+        this.drivetrain = drivetrain;
+        this.table = NetworkTableInstance.getDefault().getTable(CameraConstants.FrontCam.FRONT_CAMERA_NETWORK_TABLES_NAME);
+    }
+
+    @Override
+    public void periodic() {
+        if (table.getEntry("tv").getDouble(0) == 1) {
+            double latencyMs = table.getEntry("tl").getDouble(0) + table.getEntry("cl").getDouble(0);
+            double captureTime = Timer.getFPGATimestamp() - latencyMs / 1000.0;
+
+            Optional<Translation2d> robotRelative = projectToFloor(
+                    table.getEntry("tx").getDouble(0),
+                    table.getEntry("ty").getDouble(0));
+            robotRelative.ifPresent(position -> remember(toField(position, drivetrain.getPoseAt(captureTime)), captureTime));
+        }
+
+        Optional<Translation2d> current = getNote();
+        SmartDashboard.putBoolean("NoteTracker/has note", current.isPresent());
+        current.ifPresent(position -> SmartDashboard.putNumberArray("NoteTracker/note",
+                new double[] { position.getX(), position.getY() }));
+    }
+
+    /** The remembered note in field coordinates, if it was seen recently enough. */
+    public Optional<Translation2d> getNote() {
+        if (note == null || Timer.getFPGATimestamp() - lastSeenTime > CameraConstants.NoteTracking.kNoteMemorySeconds) {
+            return Optional.empty();
+        }
+        return Optional.of(note);
+    }
+
+    public double getTimeSinceSeen() {
+        return Timer.getFPGATimestamp() - lastSeenTime;
+    }
+
+    public void forget() {
+        note = null;
+        lastSeenTime = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Intersects the camera ray through (tx, ty) with the floor and returns the
+     * point relative to the robot center. Empty if the ray points at or above the
+     * horizon or the note is implausibly far away.
+     */
+    private Optional<Translation2d> projectToFloor(double tx, double ty) {
+        double downAngle = -Math.toRadians(CameraConstants.FrontCam.kCameraPitchDegrees + ty);
+        if (downAngle <= 0) {
+            return Optional.empty();
+        }
+
+        double forward = CameraConstants.FrontCam.kCameraHeightMeters / Math.tan(downAngle);
+        if (forward > CameraConstants.NoteTracking.kMaxNoteDistanceMeters) {
+            return Optional.empty();
+        }
+        double left = forward * Math.tan(-Math.toRadians(tx)); // tx is positive to the right
+
+        Translation2d inCamera = new Translation2d(forward, left);
+        return Optional.of(inCamera.rotateBy(cameraYaw).plus(cameraOnRobot));
+    }
+
+    private Translation2d toField(Translation2d robotRelative, Pose2d robotPose) {
+        return robotPose.getTranslation().plus(robotRelative.rotateBy(robotPose.getRotation()));
+    }
+
+    private void remember(Translation2d sighting, double time) {
+        if (note != null && getNote().isPresent()
+                && note.getDistance(sighting) < CameraConstants.NoteTracking.kSameNoteDistanceMeters) {
+            // same note again, smooth out the jitter between frames
+            note = note.interpolate(sighting, CameraConstants.NoteTracking.kNoteSmoothing);
+        } else {
+            note = sighting;
+        }
+        lastSeenTime = time;
+    }
+}
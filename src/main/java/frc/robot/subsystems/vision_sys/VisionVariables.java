@@ -8,6 +8,7 @@ public class VisionVariables {
     public static class ExportedVariables {
         public static double Distance;
         public static int AngleForShooter;
+        public static double LastSeenTime = Double.NEGATIVE_INFINITY; // FPGA time the speaker tag was last seen
     }
 
     public static class FrontCam {
@@ -4,10 +4,12 @@ import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.constants.CameraConstants;
 import frc.robot.subsystems.vision_sys.VisionVariables;
+import frc.robot.subsystems.vision_sys.sim.LimelightSimServer;
 import frc.robot.subsystems.vision_sys.utils.DashBoardManager;
 import frc.robot.subsystems.vision_sys.utils.ObjectType;
 import frc.robot.subsystems.vision_sys.utils.VisionObject;
@@ -33,6 +35,9 @@ public class BackCamera extends vision_sys {
     @Override
     public void simulationPeriodic() {
         super.simulationPeriodic();
+        if (LimelightSimServer.isAnyRunning()) {
+            return; // periodic() already read the replayed values from NT
+        }
         tag.update(
                 random.nextDouble() * 100,
                 random.nextDouble() * 100,
@@ -85,6 +90,7 @@ public class BackCamera extends vision_sys {
             VisionVariables.BackCam.target = tag;
             VisionVariables.ExportedVariables.AngleForShooter = setShooterAngle(tag);
             VisionVariables.ExportedVariables.Distance = tag.getDistance();
+            VisionVariables.ExportedVariables.LastSeenTime = Timer.getFPGATimestamp();
             SmartDashboard.putNumber("Distance", VisionVariables.ExportedVariables.Distance);
         }
     }
@@ -6,6 +6,7 @@ import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.constants.CameraConstants;
 import frc.robot.subsystems.vision_sys.VisionVariables;
+import frc.robot.subsystems.vision_sys.sim.LimelightSimServer;
 import frc.robot.subsystems.vision_sys.utils.DashBoardManager;
 import frc.robot.subsystems.vision_sys.utils.ObjectType;
 import frc.robot.subsystems.vision_sys.utils.VisionObject;
@@ -30,6 +31,9 @@ public class FrontCamera extends vision_sys {
     @Override
     public void simulationPeriodic() {
         super.simulationPeriodic();
+        if (LimelightSimServer.isAnyRunning()) {
+            return; // periodic() already read the replayed values from NT
+        }
         note.update(
                 random.nextDouble() * 100,
                 random.nextDouble() * 100,
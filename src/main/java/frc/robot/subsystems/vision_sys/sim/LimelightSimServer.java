@@ -0,0 +1,342 @@
+package frc.robot.subsystems.vision_sys.sim;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Stands in for a Limelight by publishing tx/ty/ta/tv/tid/botpose/json into its
+ * NetworkTables table, so BackCamera, FrontCamera and the aiming commands can be
+ * run in simulation without the camera on the network.
+ *
+ * Samples come either from a wpilog recorded on the robot (DataLogManager logs
+ * NT as "NT:/limelight-april/tx" etc.) or from a {@link Scenario} built in code.
+ * Replay can run at recorded speed or faster, with an added pipeline latency and
+ * random jitter on top of the recorded timing.
+ */
+public class LimelightSimServer {
+    private static int runningServers = 0;
+
+    private final String tableName;
+    private final NetworkTable table;
+    private final Map<String, NetworkTableEntry> entries = new HashMap<>();
+    private final Random random = new Random();
+    private final Notifier notifier;
+
+    private Sample[] samples = new Sample[0];
+    private long[] publishTimes = new long[0];
+    private int nextSample;
+    private long startTime;
+    private boolean running;
+
+    private double speed = 1.0;
+    private double latencyMs = 0;
+    private double jitterMs = 0;
+    private boolean loop = false;
+
+    // Benchmark counters, reset on every start()
+    private int publishedCount;
+    private double maxLatenessMs;
+    private double totalLatenessMs;
+
+    public LimelightSimServer(String tableName) {
+        this(NetworkTableInstance.getDefault(), tableName);
+    }
+
+    public LimelightSimServer(NetworkTableInstance inst, String tableName) {
+        this.tableName = tableName;
+        this.table = inst.getTable(tableName);
+        this.notifier = new Notifier(this::update);
+        this.notifier.setName("LimelightSim-" + tableName);
+    }
+
+    /** True while any stand-in server is replaying, so the cameras stop faking values. */
+    public static synchronized boolean isAnyRunning() {
+        return runningServers > 0;
+    }
+
+    public LimelightSimServer withSpeed(double speed) {
+        this.speed = Math.max(speed, 0.01);
+        return this;
+    }
+
+    public LimelightSimServer withLatency(double latencyMs) {
+        this.latencyMs = Math.max(latencyMs, 0);
+        return this;
+    }
+
+    public LimelightSimServer withJitter(double jitterMs) {
+        this.jitterMs = Math.max(jitterMs, 0);
+        return this;
+    }
+
+    public LimelightSimServer withLoop(boolean loop) {
+        this.loop = loop;
+        return this;
+    }
+
+    /** Loads every sample logged under this Limelight's table from a wpilog file. */
+    public LimelightSimServer loadWpilog(String path) throws IOException {
+        DataLogReader reader = new DataLogReader(path);
+        if (!reader.isValid()) {
+            throw new IOException("Not a valid wpilog: " + path);
+        }
+
+        String prefix = "NT:/" + tableName + "/";
+        Map<Integer, String> keys = new HashMap<>();
+        Map<Integer, String> types = new HashMap<>();
+        List<Sample> loaded = new ArrayList<>();
+
+        for (DataLogRecord record : reader) {
+            if (record.isStart()) {
+                DataLogRecord.StartRecordData start = record.getStartData();
+                if (start.name.startsWith(prefix)) {
+                    keys.put(start.entry, start.name.substring(prefix.length()));
+                    types.put(start.entry, start.type);
+                }
+            } else if (!record.isControl() && keys.containsKey(record.getEntry())) {
+                String key = keys.get(record.getEntry());
+                long time = record.getTimestamp();
+                switch (types.get(record.getEntry())) {
+                    case "double":
+                        loaded.add(Sample.ofDouble(time, key, record.getDouble()));
+                        break;
+                    case "int64":
+                        loaded.add(Sample.ofDouble(time, key, record.getInteger()));
+                        break;
+                    case "double[]":
+                        loaded.add(Sample.ofArray(time, key, record.getDoubleArray()));
+                        break;
+                    case "string":
+                    case "json":
+                        loaded.add(Sample.ofString(time, key, record.getString()));
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        setSamples(loaded);
+        return this;
+    }
+
+    public LimelightSimServer loadScenario(Scenario scenario) {
+        setSamples(scenario.samples);
+        return this;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        schedulePublishTimes();
+        nextSample = 0;
+        publishedCount = 0;
+        maxLatenessMs = 0;
+        totalLatenessMs = 0;
+        startTime = RobotController.getFPGATime();
+        running = true;
+        synchronized (LimelightSimServer.class) {
+            runningServers++;
+        }
+        notifier.startPeriodic(0.002);
+    }
+
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        notifier.stop();
+        running = false;
+        synchronized (LimelightSimServer.class) {
+            runningServers--;
+        }
+        SmartDashboard.putNumber(tableName + " sim published", publishedCount);
+        SmartDashboard.putNumber(tableName + " sim max late ms", maxLatenessMs);
+        SmartDashboard.putNumber(tableName + " sim avg late ms", getAverageLatenessMs());
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    public int getPublishedCount() {
+        return publishedCount;
+    }
+
+    /** Worst delay between a sample's scheduled time and the moment it reached NT. */
+    public double getMaxLatenessMs() {
+        return maxLatenessMs;
+    }
+
+    public double getAverageLatenessMs() {
+        return publishedCount == 0 ? 0 : totalLatenessMs / publishedCount;
+    }
+
+    private void setSamples(List<Sample> loaded) {
+        loaded.sort(Comparator.comparingLong(sample -> sample.time));
+        samples = loaded.toArray(new Sample[0]);
+        publishTimes = new long[samples.length];
+    }
+
+    // Turns recorded timestamps into wall-clock offsets: scaled by speed, then shifted
+    // by latency and jitter. Jitter never reorders samples, so a key can't go backwards.
+    private void schedulePublishTimes() {
+        if (samples.length == 0) {
+            return;
+        }
+        long first = samples[0].time;
+        long previous = 0;
+        for (int i = 0; i < samples.length; i++) {
+            double offset = (samples[i].time - first) / speed;
+            offset += latencyMs * 1000.0;
+            offset += random.nextDouble() * jitterMs * 1000.0;
+            publishTimes[i] = Math.max(previous, (long) offset);
+            previous = publishTimes[i];
+        }
+    }
+
+    private synchronized void update() {
+        if (!running) {
+            return;
+        }
+        long now = RobotController.getFPGATime() - startTime;
+        while (nextSample < samples.length && publishTimes[nextSample] <= now) {
+            publish(samples[nextSample]);
+
+            double latenessMs = (now - publishTimes[nextSample]) / 1000.0;
+            maxLatenessMs = Math.max(maxLatenessMs, latenessMs);
+            totalLatenessMs += latenessMs;
+            publishedCount++;
+            nextSample++;
+        }
+
+        if (nextSample >= samples.length) {
+            if (loop && samples.length > 0) {
+                schedulePublishTimes();
+                nextSample = 0;
+                startTime = RobotController.getFPGATime();
+            } else {
+                notifier.stop();
+                running = false;
+                synchronized (LimelightSimServer.class) {
+                    runningServers--;
+                }
+            }
+        }
+    }
+
+    private void publish(Sample sample) {
+        NetworkTableEntry entry = entries.computeIfAbsent(sample.key, table::getEntry);
+        if (sample.array != null) {
+            entry.setDoubleArray(sample.array);
+        } else if (sample.string != null) {
+            entry.setString(sample.string);
+        } else {
+            entry.setDouble(sample.value);
+        }
+    }
+
+    private static class Sample {
+        final long time;
+        final String key;
+        final double value;
+        final double[] array;
+        final String string;
+
+        private Sample(long time, String key, double value, double[] array, String string) {
+            this.time = time;
+            this.key = key;
+            this.value = value;
+            this.array = array;
+            this.string = string;
+        }
+
+        static Sample ofDouble(long time, String key, double value) {
+            return new Sample(time, key, value, null, null);
+        }
+
+        static Sample ofArray(long time, String key, double[] array) {
+            return new Sample(time, key, 0, array, null);
+        }
+
+        static Sample ofString(long time, String key, String string) {
+            return new Sample(time, key, 0, null, string);
+        }
+    }
+
+    /**
+     * A scripted sequence of Limelight frames. Each frame sets every key a real
+     * Limelight would, so consumers can't tell it apart from a camera.
+     */
+    public static class Scenario {
+        private final List<Sample> samples = new ArrayList<>();
+        private final double pipelineLatencyMs;
+        private long time = 0;
+
+        public Scenario(double pipelineLatencyMs) {
+            this.pipelineLatencyMs = pipelineLatencyMs;
+        }
+
+        /** Advances the script clock before the next frame. */
+        public Scenario waitSeconds(double seconds) {
+            time += (long) (seconds * 1e6);
+            return this;
+        }
+
+        public Scenario target(double tx, double ty, double ta, int tid, double[] botpose) {
+            samples.add(Sample.ofDouble(time, "tx", tx));
+            samples.add(Sample.ofDouble(time, "ty", ty));
+            samples.add(Sample.ofDouble(time, "ta", ta));
+            samples.add(Sample.ofDouble(time, "tid", tid));
+            samples.add(Sample.ofDouble(time, "tl", pipelineLatencyMs));
+            samples.add(Sample.ofDouble(time, "tv", 1));
+            if (botpose != null) {
+                samples.add(Sample.ofArray(time, "botpose_wpiblue", botpose));
+            }
+            samples.add(Sample.ofString(time, "json", String.format(
+                    "{\"Results\":{\"v\":1,\"tl\":%.1f,\"Fiducial\":[{\"fID\":%d,\"tx\":%.3f,\"ty\":%.3f,\"ta\":%.3f}]}}",
+                    pipelineLatencyMs, tid, tx, ty, ta)));
+            return this;
+        }
+
+        public Scenario noTarget() {
+            samples.add(Sample.ofDouble(time, "tv", 0));
+            samples.add(Sample.ofDouble(time, "tid", -1));
+            samples.add(Sample.ofDouble(time, "tl", pipelineLatencyMs));
+            samples.add(Sample.ofString(time, "json", "{\"Results\":{\"v\":0,\"Fiducial\":[]}}"));
+            return this;
+        }
+
+        /**
+         * Drives toward the speaker tag from {@code startTy} to {@code endTy} while the
+         * tag drifts across the image, one frame every {@code period} seconds.
+         */
+        public static Scenario speakerApproach(int tid, double startTy, double endTy, double seconds,
+                double period, double pipelineLatencyMs) {
+            Scenario scenario = new Scenario(pipelineLatencyMs);
+            int frames = (int) Math.ceil(seconds / period);
+            for (int i = 0; i <= frames; i++) {
+                double progress = (double) i / frames;
+                double ty = startTy + (endTy - startTy) * progress;
+                double tx = 12 * Math.cos(progress * Math.PI);
+                scenario.target(tx, ty, 0.2 + 2 * progress, tid, null).waitSeconds(period);
+            }
+            return scenario.noTarget();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package frc.robot.utils;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.filter.LinearFilter;
+import edu.wpi.first.math.filter.MedianFilter;
+import edu.wpi.first.util.sendable.Sendable;
+import edu.wpi.first.util.sendable.SendableBuilder;
+import edu.wpi.first.wpilibj.DutyCycleEncoder;
+import edu.wpi.first.wpilibj.Preferences;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.constants.EncoderConstants;
+
+/**
+ * Reads a through bore (duty cycle) absolute encoder once per {@link #update()}
+ * and turns it into a continuous mechanism angle in degrees.
+ *
+ * The offset comes from Preferences, so a calibration saved with
+ * {@link #calibrate(double)} survives reboots and redeploys. The first reading
+ * after boot, or after the encoder reconnects, is placed in the mechanism's
+ * window. From then on each reading is unwrapped against the previous one, so
+ * crossing the encoder's seam doesn't jump the angle. A median filter drops
+ * single-sample glitches, and velocity is the filtered angle differentiated over
+ * real time.
+ *
+ * While the encoder is unplugged the last good angle is held and velocity is
+ * zero; check {@link #isConnected()} before trusting it.
+ */
+public class AbsoluteEncoderProcessor implements Sendable {
+    private final DutyCycleEncoder encoder;
+    private final String offsetKey;
+    private final double minAngle;
+
+    private final MedianFilter median = new MedianFilter(EncoderConstants.kMedianTaps);
+    private final LinearFilter velocityFilter = LinearFilter.movingAverage(EncoderConstants.kVelocityTaps);
+
+    private double offset;
+    private boolean connected = false;
+    private boolean seeded = false;
+    private double lastRaw = 0;
+    private double unwrapped = 0;
+    private double angle = 0;
+    private double velocity = 0;
+    private double lastTimestamp = 0;
+
+    /**
+     * @param name          prefix for the Preferences key the offset is saved under
+     * @param channel       DIO channel
+     * @param defaultOffset rotations, used until a calibration is saved
+     * @param minAngle      degrees, low end of the window the boot reading is placed in
+     */
+    public AbsoluteEncoderProcessor(String name, int channel, double defaultOffset, double minAngle) {
+        encoder = new DutyCycleEncoder(channel);
+        offsetKey = name + " encoder offset";
+        this.minAngle = minAngle;
+
+        Preferences.initDouble(offsetKey, defaultOffset);
+        offset = Preferences.getDouble(offsetKey, defaultOffset);
+    }
+
+    public void update() {
+        double now = Timer.getFPGATimestamp();
+        connected = encoder.isConnected();
+        if (!connected) {
+            seeded = false;
+            velocity = 0;
+            return;
+        }
+
+        double raw = (encoder.getAbsolutePosition() - offset) * 360;
+        if (!seeded) {
+            unwrapped = MathUtil.inputModulus(raw, minAngle, minAngle + 360);
+            median.reset();
+            velocityFilter.reset();
+            for (int i = 0; i < EncoderConstants.kMedianTaps; i++) {
+                median.calculate(unwrapped);
+            }
+            angle = unwrapped;
+            seeded = true;
+        } else {
+            unwrapped += MathUtil.inputModulus(raw - lastRaw, -180, 180);
+            double previousAngle = angle;
+            angle = median.calculate(unwrapped);
+            double dt = now - lastTimestamp;
+            if (dt > 0) {
+                velocity = velocityFilter.calculate((angle - previousAngle) / dt);
+            }
+        }
+        lastRaw = raw;
+        lastTimestamp = now;
+    }
+
+    /** Degrees, continuous. */
+    public double getAngle() {
+        return angle;
+    }
+
+    /** Degrees per second. */
+    public double getVelocity() {
+        return velocity;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /** Raw absolute position in rotations, without the offset. */
+    public double getAbsolutePosition() {
+        return encoder.getAbsolutePosition();
+    }
+
+    /** Saves an offset that makes the current position read {@code angle} degrees. */
+    public void calibrate(double angle) {
+        offset = MathUtil.inputModulus(encoder.getAbsolutePosition() - angle / 360, 0, 1);
+        Preferences.setDouble(offsetKey, offset);
+        seeded = false;
+    }
+
+    @Override
+    public void initSendable(SendableBuilder builder) {
+        builder.setSmartDashboardType("AbsoluteEncoder");
+        builder.addDoubleProperty("Angle", this::getAngle, null);
+        builder.addDoubleProperty("Velocity", this::getVelocity, null);
+        builder.addDoubleProperty("Absolute Position", this::getAbsolutePosition, null);
+        builder.addDoubleProperty("Offset", () -> offset, null);
+        builder.addBooleanProperty("Connected", this::isConnected, null);
+    }
+}
@@ -0,0 +1,106 @@
+package frc.robot.utils;
+
+import frc.robot.constants.ArmConstants;
+
+/**
+ * Combines the arm's through bore encoder with the Talon's rotor sensor.
+ *
+ * The rotor sensor is fast and smooth but only relative, and it no longer
+ * matches the arm if the belt skips. The through bore is absolute but slower,
+ * and its PWM reading occasionally glitches. The fused angle is the rotor angle
+ * plus an offset. The offset is seeded from the through bore and then pulled
+ * slowly toward it while the arm is still.
+ *
+ * A disagreement larger than {@link ArmConstants.Fusion#kDisagreementDegrees} is
+ * not trusted straight away. If it goes away within
+ * {@link ArmConstants.Fusion#kSlipSamples} updates, it was a through bore glitch
+ * and is ignored. If it lasts, the belt slipped and the offset jumps to the
+ * through bore.
+ *
+ * Call {@link #update} once per control loop tick, with angles in degrees.
+ */
+public class ArmEncoderFusion {
+    public enum Status {
+        OK,
+        NO_ABSOLUTE, // through bore unplugged, running on the rotor alone
+        DISAGREE, // sensors disagree, not yet sure whether it is a glitch or a slip
+        GLITCH, // the last disagreement went away by itself
+        SLIP, // the last disagreement stuck and the offset was re-seeded
+    }
+
+    private double offset = 0;
+    private boolean seeded = false;
+    private double fusedAngle = 0;
+    private double error = 0;
+    private int disagreeSamples = 0;
+    private int glitchCount = 0;
+    private int slipCount = 0;
+    private Status status = Status.NO_ABSOLUTE;
+
+    public void update(double absoluteAngle, boolean absoluteConnected, double rotorAngle, double rotorVelocity) {
+        if (!absoluteConnected) {
+            status = Status.NO_ABSOLUTE;
+            disagreeSamples = 0;
+            fusedAngle = rotorAngle + offset;
+            return;
+        }
+        if (!seeded) {
+            offset = absoluteAngle - rotorAngle;
+            seeded = true;
+        }
+
+        error = absoluteAngle - (rotorAngle + offset);
+        if (Math.abs(error) > ArmConstants.Fusion.kDisagreementDegrees) {
+            disagreeSamples++;
+            if (disagreeSamples >= ArmConstants.Fusion.kSlipSamples) {
+                offset += error;
+                slipCount++;
+                disagreeSamples = 0;
+                status = Status.SLIP;
+            } else {
+                status = Status.DISAGREE;
+            }
+        } else {
+            if (disagreeSamples > 0) {
+                glitchCount++;
+                status = Status.GLITCH;
+            } else if (status == Status.DISAGREE || status == Status.NO_ABSOLUTE) {
+                status = Status.OK;
+            }
+            disagreeSamples = 0;
+
+            if (Math.abs(rotorVelocity) < ArmConstants.Fusion.kStillVelocity) {
+                offset += ArmConstants.Fusion.kOffsetGain * error;
+            }
+        }
+        fusedAngle = rotorAngle + offset;
+    }
+
+    /** Arm angle in degrees. */
+    public double getAngle() {
+        return fusedAngle;
+    }
+
+    /** Arm angle minus rotor angle, in degrees. Subtract it from an arm angle to get a rotor target. */
+    public double getOffset() {
+        return offset;
+    }
+
+    /** Through bore minus fused angle at the last update, in degrees. */
+    public double getError() {
+        return error;
+    }
+
+    /** Latest event. GLITCH and SLIP stay latched until the next event, so they show up on the dashboard. */
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getGlitchCount() {
+        return glitchCount;
+    }
+
+    public int getSlipCount() {
+        return slipCount;
+    }
+}
@@ -0,0 +1,91 @@
+package frc.robot.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.constants.PowerConstants.Budget;
+
+/**
+ * Shares {@link Budget#kTotal} amps of supply current between mechanisms. Each one
+ * added with {@link #add} gets its idle limit; whatever is left goes to the
+ * mechanisms that are busy right now, in proportion to how much more they can
+ * use, up to their busy limit. The drive gets more while sprinting, the shooter
+ * while spinning up, and so on.
+ *
+ * Busy is the mechanism's own view of its demand, not which command is running.
+ * Limits are rounded down to {@link Budget#kStep} and only handed to a mechanism
+ * when they change, since applying one is a config write over CAN; the
+ * mechanisms send those without waiting for an ack. On a Talon the supply limit
+ * from here and the stator limit from thermal derating share one config group,
+ * so the subsystem re-sends both together. Call {@link #update} once per loop,
+ * after the scheduler so it sees the setpoints commands just set. Nothing is
+ * allocated per loop.
+ */
+public class CurrentBudget {
+    private static class Mechanism {
+        final String name;
+        final BooleanSupplier busy;
+        final double idle;
+        final double max;
+        final DoubleConsumer applyLimit;
+        final DoubleLogEntry limitLog;
+        double limit = Double.NaN;
+        boolean busyNow = false; // sampled once per update
+
+        Mechanism(String name, BooleanSupplier busy, double idle, double max, DoubleConsumer applyLimit) {
+            this.name = name;
+            this.busy = busy;
+            this.idle = idle;
+            this.max = max;
+            this.applyLimit = applyLimit;
+            limitLog = new DoubleLogEntry(DataLogManager.getLog(), "/power/budget/" + name);
+        }
+    }
+
+    private final List<Mechanism> mechanisms = new ArrayList<>();
+
+    /**
+     * @param busy       whether the mechanism is doing something that wants current
+     * @param idle       amps it always gets
+     * @param max        amps it can use when busy
+     * @param applyLimit pushes a new supply current limit, in amps, to the mechanism
+     */
+    public void add(String name, BooleanSupplier busy, double idle, double max, DoubleConsumer applyLimit) {
+        mechanisms.add(new Mechanism(name, busy, idle, max, applyLimit));
+    }
+
+    public void update() {
+        double spare = Budget.kTotal;
+        double wanted = 0;
+        for (int i = 0; i < mechanisms.size(); i++) {
+            Mechanism mechanism = mechanisms.get(i);
+            mechanism.busyNow = mechanism.busy.getAsBoolean();
+            spare -= mechanism.idle;
+            if (mechanism.busyNow) {
+                wanted += mechanism.max - mechanism.idle;
+            }
+        }
+        double share = wanted > 0 ? Math.min(1, Math.max(0, spare) / wanted) : 0;
+
+        for (int i = 0; i < mechanisms.size(); i++) {
+            Mechanism mechanism = mechanisms.get(i);
+            double limit = mechanism.idle;
+            if (mechanism.busyNow) {
+                limit += (mechanism.max - mechanism.idle) * share;
+            }
+            limit = Math.max(mechanism.idle, Math.floor(limit / Budget.kStep) * Budget.kStep);
+
+            if (limit != mechanism.limit) {
+                mechanism.applyLimit.accept(limit);
+                mechanism.limit = limit;
+                mechanism.limitLog.append(limit);
+                SmartDashboard.putNumber("Power/" + mechanism.name + " budget", limit);
+            }
+        }
+    }
+}
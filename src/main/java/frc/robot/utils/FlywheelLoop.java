@@ -0,0 +1,62 @@
+package frc.robot.utils;
+
+import edu.wpi.first.math.Nat;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.controller.LinearQuadraticRegulator;
+import edu.wpi.first.math.estimator.KalmanFilter;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.system.LinearSystem;
+import edu.wpi.first.math.system.LinearSystemLoop;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import frc.robot.constants.ControlLoopConstants;
+import frc.robot.constants.ShooterConstants.Flywheel;
+
+/**
+ * State-space velocity loop for one shooter flywheel, in rotations per second
+ * and volts.
+ *
+ * The plant is the kV/kA model from SysId. A Kalman filter combines it with the
+ * measured velocity, and an LQR sets the gain. The LQR gain is compensated for
+ * the delay between computing a voltage and the Talon applying it. When a note
+ * pulls the wheel down, the filter sees the drop against the model and the
+ * regulator pushes back at full authority without the integrator windup that
+ * makes the Talon's PID overshoot on recovery.
+ *
+ * Call {@link #calculate} once per control loop tick.
+ */
+public class FlywheelLoop {
+    private final LinearSystemLoop<N1, N1, N1> loop;
+
+    public FlywheelLoop() {
+        LinearSystem<N1, N1, N1> plant = LinearSystemId.identifyVelocitySystem(Flywheel.kV, Flywheel.kA);
+
+        KalmanFilter<N1, N1, N1> observer = new KalmanFilter<>(Nat.N1(), Nat.N1(), plant,
+                VecBuilder.fill(Flywheel.kModelStdDev), VecBuilder.fill(Flywheel.kMeasurementStdDev),
+                ControlLoopConstants.kPeriod);
+
+        LinearQuadraticRegulator<N1, N1, N1> controller = new LinearQuadraticRegulator<>(plant,
+                VecBuilder.fill(Flywheel.kVelocityErrorTolerance), VecBuilder.fill(Flywheel.kControlEffort),
+                ControlLoopConstants.kPeriod);
+        controller.latencyCompensate(plant, ControlLoopConstants.kPeriod, Flywheel.kInputDelay);
+
+        loop = new LinearSystemLoop<>(plant, controller, observer, Flywheel.kMaxVoltage, ControlLoopConstants.kPeriod);
+    }
+
+    /** Starts the estimate from a measured velocity, so a switch into this loop doesn't kick. */
+    public void reset(double measuredVelocity) {
+        loop.reset(VecBuilder.fill(measuredVelocity));
+    }
+
+    /** Volts to apply this tick to reach {@code targetVelocity}. */
+    public double calculate(double targetVelocity, double measuredVelocity) {
+        loop.setNextR(VecBuilder.fill(targetVelocity));
+        loop.correct(VecBuilder.fill(measuredVelocity));
+        loop.predict(ControlLoopConstants.kPeriod);
+        return loop.getU(0);
+    }
+
+    /** Filtered velocity, rotations per second. */
+    public double getEstimatedVelocity() {
+        return loop.getXHat(0);
+    }
+}
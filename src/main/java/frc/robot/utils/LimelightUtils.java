@@ -1,9 +1,16 @@
 package frc.robot.utils;
 
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.constants.ShooterConstants;
 import frc.robot.subsystems.vision_sys.utils.VisionObject;
 
 public class LimelightUtils {
+    private static final ShotMap shotMap = new ShotMap(ShooterConstants.kShotMapFile);
+
+    public static ShotMap getShotMap() {
+        return shotMap;
+    }
+
     public static class SpeedAngle {
         public double speed;
         public double angle;
@@ -27,21 +34,7 @@ public class LimelightUtils {
     }
 
     public static double MapDistanceToOffset(double limelightDistance){
-        if(limelightDistance < 1) {
-            return 0;
-        } else if (limelightDistance < 2) {
-            return -3;
-        } else if (limelightDistance < 3) {
-            return -6;
-        } else if(limelightDistance < 4){
-            return -7;
-        }else if(limelightDistance < 5) {    
-            return -7;
-        } else if (limelightDistance < 6) {
-            return -8;
-        } else {
-            return -10;
-        }
+        return shotMap.getHeadingOffset(limelightDistance);
     }
 
     private static double getTrigAlignAngle(double limelightTagDistanceCenter, double limelightTagDistanceRight) {
@@ -65,76 +58,12 @@ public class LimelightUtils {
     private static double getAngle(double limelightDistance) {
         SmartDashboard.putNumber("Supplied Distance to Shooter", limelightDistance);
         if (!VisionObject.isPresent()){
-            return -33;
-        } else if (limelightDistance < 0.5) {
-            return -1;
-        } else if (limelightDistance < 1.125) { // 1
-            return -6;
-        } else if (limelightDistance < 1.375) { // 1.25
-            return -15;
-        } else if (limelightDistance < 1.625) { // 1.5
-            return -16;
-        } else if (limelightDistance < 1.875) { // 1.75
-            return -17;
-        } else if (limelightDistance < 2.125) { // 2
-            return -19.5;
-        } else if (limelightDistance < 2.375) { // 2.25
-            return -20;
-        } else if (limelightDistance < 2.625) { // 2.5
-            return -24.5;
-        } else if (limelightDistance < 2.875) { // 2.75
-            return -27;
-        } else if (limelightDistance < 3.125) { // 3
-            return -27;
-        } else if (limelightDistance < 3.375) { // 3.25
-            return -29;
-        } else if (limelightDistance < 3.625) { // 3.5
-            return -31;
-        } else if (limelightDistance < 3.875) { // 3.75
-            return -33;
-        } else if (limelightDistance < 4.125) { // 4
-            return -33;
-        } else if (limelightDistance < 4.375) { // 4.25
-            return -31;
-        } else if (limelightDistance < 4.625) { // 4.5
-            return -34.5;
-        } else if (limelightDistance < 4.875) { // 4.75
-            return -29;
-        } else if (limelightDistance < 5.125) { // 5
-            return -34;
-        } else if (limelightDistance < 5.375) { // 5.25
-            return -32.5;
-        } else if (limelightDistance < 5.625) { // 5.5
-            return -32;
-        } else if (limelightDistance < 5.875) { // 5.75
-            return -34.2;
-        } else if (limelightDistance < 6.125) { // 6
-            return -34;
-        } else if (limelightDistance < 6.375) { // 6.25
-            return -35;
-        } else if (limelightDistance < 6.625) { // 6.5
-            return -36;
-        } else if (limelightDistance < 6.875) { // 6.75
-            return -37;
-        } else if (limelightDistance < 7.125) { // 7
-            return -37.5;
-        } else if (limelightDistance < 7.375) { // 7.25
-            return -38;
-        } else if (limelightDistance < 7.625) { // 7.5
-            return -39;
-        } else if (limelightDistance < 7.875) { // 7.75
-            return -39;
-        } else { // 8
-            return -39.5;
+            return ShooterConstants.kNoTargetShooterAngle;
         }
+        return shotMap.getAngle(limelightDistance);
     }
 
     private static double getSpeed(double limelightDistance) {
-
-        if(limelightDistance < 2) {
-            return -80;
-        } else {
-            return -80;
-        }
+        return shotMap.getSpeed(limelightDistance);
     }
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package frc.robot.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.constants.ControlLoopConstants;
+
+/**
+ * Runs mechanism controllers faster than the command scheduler. Commands only set
+ * goals; the registered controllers close their loops here at
+ * {@link ControlLoopConstants#kPeriod}.
+ *
+ * Every tick first asks all controllers to sense, then asks all of them to
+ * control, so each one acts on a snapshot taken at the same moment (the shooter
+ * sees the arm angle from this tick, not the last scheduler loop).
+ *
+ * Registered with {@code TimedRobot.addPeriodic}, so it runs on the main robot
+ * thread between scheduler loops and needs no locking. The price is that a slow
+ * scheduler loop delays ticks; the measured period jitter is published so that
+ * shows up.
+ */
+public class MechanismControlLoop {
+    public interface Controller {
+        /** Read sensors into this tick's snapshot. */
+        void sense();
+
+        /** Compute and apply outputs from the snapshot. */
+        void control();
+    }
+
+    private final List<Controller> controllers = new ArrayList<>();
+
+    private final DoubleLogEntry periodLog = new DoubleLogEntry(DataLogManager.getLog(), "/controlLoop/periodMs");
+    private final DoubleLogEntry runTimeLog = new DoubleLogEntry(DataLogManager.getLog(), "/controlLoop/runTimeMs");
+
+    private long lastTickMicros = 0;
+    private int ticks = 0;
+    private double maxJitterMs = 0;
+    private double sumSquaredJitterMs = 0;
+    private double maxRunTimeMs = 0;
+
+    public void register(Controller... toRegister) {
+        for (Controller controller : toRegister) {
+            controllers.add(controller);
+        }
+    }
+
+    public void run() {
+        long start = RobotController.getFPGATime();
+
+        for (Controller controller : controllers) {
+            controller.sense();
+        }
+        for (Controller controller : controllers) {
+            controller.control();
+        }
+
+        recordTiming(start, RobotController.getFPGATime());
+    }
+
+    private void recordTiming(long startMicros, long endMicros) {
+        double runTimeMs = (endMicros - startMicros) / 1000.0;
+        runTimeLog.append(runTimeMs);
+        maxRunTimeMs = Math.max(maxRunTimeMs, runTimeMs);
+
+        if (lastTickMicros != 0) {
+            double periodMs = (startMicros - lastTickMicros) / 1000.0;
+            double jitterMs = periodMs - ControlLoopConstants.kPeriod * 1000;
+            periodLog.append(periodMs);
+            maxJitterMs = Math.max(maxJitterMs, Math.abs(jitterMs));
+            sumSquaredJitterMs += jitterMs * jitterMs;
+            ticks++;
+        }
+        lastTickMicros = startMicros;
+
+        if (ticks >= ControlLoopConstants.kReportTicks) {
+            SmartDashboard.putNumber("ControlLoop/max jitter ms", maxJitterMs);
+            SmartDashboard.putNumber("ControlLoop/rms jitter ms", Math.sqrt(sumSquaredJitterMs / ticks));
+            SmartDashboard.putNumber("ControlLoop/max run time ms", maxRunTimeMs);
+            ticks = 0;
+            maxJitterMs = 0;
+            sumSquaredJitterMs = 0;
+            maxRunTimeMs = 0;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package frc.robot.utils;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.util.datalog.StringLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.constants.PowerConstants;
+import frc.robot.constants.PowerConstants.Load;
+
+/**
+ * Sheds loads before the battery browns out. Watches the battery voltage, the
+ * roboRIO's brownout flag and the supply current of the devices added with
+ * {@link #addDevice}, and steps through {@link PowerConstants#kShedOrder}:
+ * one more load is shed after the robot has sagged for
+ * {@link PowerConstants#kShedDelay}, one is restored after it has recovered for
+ * {@link PowerConstants#kRestoreDelay}. A brownout sheds everything at once.
+ *
+ * Loads are applied by whoever registered with {@link #onShed}, which is handed
+ * a scale: 1 normally, the load's {@link PowerConstants#kShedScale} while shed.
+ *
+ * Call {@link #update} once per loop, after the sensors are read. Every step is
+ * logged to /power/events with the voltage, current and biggest draw at the time.
+ */
+public class PowerCoordinator {
+    private final List<String> deviceNames = new ArrayList<>();
+    private final List<DoubleSupplier> deviceCurrents = new ArrayList<>();
+    private final Map<Load, List<DoubleConsumer>> listeners = new EnumMap<>(Load.class);
+
+    private final StringLogEntry eventLog = new StringLogEntry(DataLogManager.getLog(), "/power/events");
+    private final DoubleLogEntry voltageLog = new DoubleLogEntry(DataLogManager.getLog(), "/power/batteryVoltage");
+    private final DoubleLogEntry currentLog = new DoubleLogEntry(DataLogManager.getLog(), "/power/totalCurrent");
+
+    private int shedCount = 0; // how many of kShedOrder are shed
+    private double saggingSince = Double.NaN;
+    private double recoveredSince = Double.NaN;
+
+    /** Tracks a device's supply current, in amps. */
+    public void addDevice(String name, DoubleSupplier supplyCurrent) {
+        deviceNames.add(name);
+        deviceCurrents.add(supplyCurrent);
+    }
+
+    /** Calls {@code applyScale} now and whenever {@code load} is shed or restored. */
+    public void onShed(Load load, DoubleConsumer applyScale) {
+        listeners.computeIfAbsent(load, unused -> new ArrayList<>()).add(applyScale);
+        applyScale.accept(getScale(load));
+    }
+
+    public void update() {
+        double now = Timer.getFPGATimestamp();
+        double voltage = RobotController.getBatteryVoltage();
+        boolean brownedOut = RobotController.isBrownedOut();
+
+        double total = 0;
+        int largest = -1;
+        double largestCurrent = 0;
+        for (int i = 0; i < deviceCurrents.size(); i++) {
+            double current = deviceCurrents.get(i).getAsDouble();
+            SmartDashboard.putNumber("Power/" + deviceNames.get(i) + " amps", current);
+            total += current;
+            if (current > largestCurrent) {
+                largest = i;
+                largestCurrent = current;
+            }
+        }
+
+        boolean sagging = voltage < PowerConstants.kShedVolts || total > PowerConstants.kShedCurrent;
+        boolean recovered = voltage > PowerConstants.kRestoreVolts && total < PowerConstants.kRestoreCurrent;
+        saggingSince = sagging ? (Double.isNaN(saggingSince) ? now : saggingSince) : Double.NaN;
+        recoveredSince = recovered ? (Double.isNaN(recoveredSince) ? now : recoveredSince) : Double.NaN;
+
+        String reason = null;
+        int target = shedCount;
+        if (brownedOut && shedCount < PowerConstants.kShedOrder.length) {
+            target = PowerConstants.kShedOrder.length;
+            reason = "brownout";
+        } else if (sagging && now - saggingSince >= PowerConstants.kShedDelay
+                && shedCount < PowerConstants.kShedOrder.length) {
+            target = shedCount + 1;
+            reason = "sagging";
+        } else if (recovered && now - recoveredSince >= PowerConstants.kRestoreDelay && shedCount > 0) {
+            target = shedCount - 1;
+            reason = "recovered";
+        }
+
+        if (reason != null) {
+            String largestName = largest >= 0 ? deviceNames.get(largest) : "none";
+            eventLog.append(String.format("%s: %d -> %d loads shed, %.2f V, %.0f A, largest %s %.0f A",
+                    reason, shedCount, target, voltage, total, largestName, largestCurrent));
+            setShedCount(target);
+            // each step has to wait out its own delay, so the last one gets a chance to show
+            saggingSince = sagging ? now : Double.NaN;
+            recoveredSince = recovered ? now : Double.NaN;
+        }
+
+        voltageLog.append(voltage);
+        currentLog.append(total);
+        SmartDashboard.putNumber("Power/battery volts", voltage);
+        SmartDashboard.putNumber("Power/total amps", total);
+        SmartDashboard.putNumber("Power/loads shed", shedCount);
+    }
+
+    /** 1 normally, the load's shed scale while it is shed. */
+    public double getScale(Load load) {
+        for (int i = 0; i < shedCount; i++) {
+            if (PowerConstants.kShedOrder[i] == load) {
+                return PowerConstants.kShedScale[i];
+            }
+        }
+        return 1;
+    }
+
+    public boolean isShed(Load load) {
+        return getScale(load) < 1;
+    }
+
+    private void setShedCount(int count) {
+        int low = Math.min(shedCount, count);
+        int high = Math.max(shedCount, count);
+        shedCount = count;
+        for (int i = low; i < high; i++) {
+            Load load = PowerConstants.kShedOrder[i];
+            double scale = getScale(load);
+            for (DoubleConsumer listener : listeners.getOrDefault(load, List.of())) {
+                listener.accept(scale);
+            }
+            SmartDashboard.putBoolean("Power/" + load.name() + " shed", scale < 1);
+        }
+    }
+}
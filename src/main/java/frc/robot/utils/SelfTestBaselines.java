@@ -0,0 +1,111 @@
+package frc.robot.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.constants.SelfTestConstants;
+
+/**
+ * Known-good step responses for the self-test, one per mechanism, in a JSON file
+ * in the deploy directory:
+ * <pre>
+ * { "tests": { "Arm": { "riseTime": 0.35, "settlingTime": 0.7, "overshoot": 2.1,
+ *                       "steadyStateError": 0.2, "peakCurrent": 28 }, ... } }
+ * </pre>
+ * {@link #save} writes the latest results over the file on the robot. Copy it
+ * back into src/main/deploy to keep it, since the next deploy overwrites it.
+ */
+public class SelfTestBaselines {
+    private final File file;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private ObjectNode tests;
+    private final ObjectNode latest;
+
+    public SelfTestBaselines(String deployFileName) {
+        file = new File(Filesystem.getDeployDirectory(), deployFileName);
+        latest = mapper.createObjectNode();
+        tests = mapper.createObjectNode();
+        try {
+            JsonNode loaded = mapper.readTree(file).path("tests");
+            if (loaded.isObject()) {
+                tests = (ObjectNode) loaded;
+            }
+        } catch (IOException e) {
+            DriverStation.reportWarning("Could not load " + file + ": " + e.getMessage(), false);
+        }
+    }
+
+    /**
+     * Stores {@code result} as the latest for {@code name} and lists how it is
+     * worse than the baseline. Empty means it passed; null means there is no
+     * baseline to compare with.
+     */
+    public List<String> compare(String name, double tolerance, StepResponse.Result result) {
+        ObjectNode node = latest.putObject(name);
+        node.put("riseTime", result.riseTime);
+        node.put("settlingTime", result.settlingTime);
+        node.put("overshoot", result.overshoot);
+        node.put("steadyStateError", result.steadyStateError);
+        node.put("peakCurrent", result.peakCurrent);
+
+        JsonNode baseline = tests.get(name);
+        if (baseline == null) {
+            return null;
+        }
+        List<String> regressions = new ArrayList<>();
+        checkTime(regressions, "rise time", result.riseTime, baseline.path("riseTime").asDouble(Double.NaN));
+        checkTime(regressions, "settling time", result.settlingTime,
+                baseline.path("settlingTime").asDouble(Double.NaN));
+        check(regressions, "overshoot", result.overshoot,
+                baseline.path("overshoot").asDouble(Double.NaN) + SelfTestConstants.kOvershootMargin);
+        check(regressions, "steady-state error", result.steadyStateError,
+                baseline.path("steadyStateError").asDouble(Double.NaN) + SelfTestConstants.kErrorMargin * tolerance);
+        check(regressions, "peak current", result.peakCurrent,
+                baseline.path("peakCurrent").asDouble(Double.NaN) * (1 + SelfTestConstants.kCurrentTolerance));
+        return regressions;
+    }
+
+    private static void checkTime(List<String> regressions, String metric, double value, double baseline) {
+        if (Double.isNaN(baseline)) {
+            return;
+        }
+        if (Double.isNaN(value)) {
+            regressions.add(metric + " never reached (baseline " + format(baseline) + ")");
+        } else {
+            check(regressions, metric, value, baseline * (1 + SelfTestConstants.kTimeTolerance));
+        }
+    }
+
+    // NaN limits (no baseline for this metric) never fail
+    private static void check(List<String> regressions, String metric, double value, double limit) {
+        if (value > limit) {
+            regressions.add(metric + " " + format(value) + " over " + format(limit));
+        }
+    }
+
+    private static String format(double value) {
+        return String.format("%.3f", value);
+    }
+
+    /** Makes the latest results the baselines, here and in the file. */
+    public void save() {
+        tests.setAll(latest);
+        ObjectNode root = mapper.createObjectNode();
+        root.set("tests", tests);
+        try {
+            mapper.writerWithDefaultPrettyPrinter().writeValue(file, root);
+            DriverStation.reportWarning("Saved self-test baselines to " + file + ", copy it into src/main/deploy",
+                    false);
+        } catch (IOException e) {
+            DriverStation.reportError("Could not save " + file + ": " + e.getMessage(), false);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package frc.robot.utils;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Decides when a joint has actually arrived, and predicts how long until it
+ * will. Settled means inside the position tolerance, slower than the velocity
+ * tolerance, and having stayed that way for the dwell time, so a joint
+ * swinging through its target doesn't count.
+ *
+ * The prediction assumes the joint decelerates evenly the rest of the way,
+ * which is what the tail of a Motion Magic profile does and errs long before
+ * that. A joint moving away from its target never settles as far as the
+ * prediction is concerned. Sequences can use {@link #settlesWithin} to start
+ * the next action while the last bit of motion finishes.
+ *
+ * Call {@link #setTarget} when the target is set and {@link #update} once per
+ * control loop tick.
+ */
+public class SettleDetector {
+    private final String name;
+    private final double positionTolerance;
+    private final double velocityTolerance;
+    private final double dwellTime;
+
+    private double target = Double.NaN;
+    private double inToleranceSince = Double.NaN;
+    private double timeToSettle = Double.POSITIVE_INFINITY;
+
+    /**
+     * @param positionTolerance same units as the position
+     * @param velocityTolerance position units per second
+     * @param dwellTime         seconds inside both tolerances before it counts
+     */
+    public SettleDetector(String name, double positionTolerance, double velocityTolerance, double dwellTime) {
+        this.name = name;
+        this.positionTolerance = positionTolerance;
+        this.velocityTolerance = velocityTolerance;
+        this.dwellTime = dwellTime;
+    }
+
+    /** A target that moves by less than the position tolerance doesn't restart the dwell. */
+    public void setTarget(double newTarget) {
+        if (Double.isNaN(target) || Math.abs(newTarget - target) > positionTolerance) {
+            inToleranceSince = Double.NaN;
+            timeToSettle = Double.POSITIVE_INFINITY; // unknown until the next update
+        }
+        target = newTarget;
+    }
+
+    public void update(double position, double velocity) {
+        if (Double.isNaN(target)) {
+            return;
+        }
+        double now = Timer.getFPGATimestamp();
+        double error = target - position;
+
+        if (Math.abs(error) < positionTolerance && Math.abs(velocity) < velocityTolerance) {
+            if (Double.isNaN(inToleranceSince)) {
+                inToleranceSince = now;
+            }
+            timeToSettle = Math.max(0, dwellTime - (now - inToleranceSince));
+        } else {
+            inToleranceSince = Double.NaN;
+            double closingSpeed = Math.copySign(velocity, error); // positive when heading toward the target
+            double distance = Math.max(0, Math.abs(error) - positionTolerance);
+            if (distance == 0) {
+                timeToSettle = dwellTime; // there, just still moving; assume the loop catches it
+            } else if (closingSpeed > 0) {
+                timeToSettle = 2 * distance / closingSpeed + dwellTime;
+            } else {
+                timeToSettle = Double.POSITIVE_INFINITY;
+            }
+        }
+        SmartDashboard.putNumber("Settle/" + name + " time to settle", timeToSettle);
+    }
+
+    public boolean isSettled() {
+        return timeToSettle == 0;
+    }
+
+    /** Seconds until settled, 0 once settled, infinite if it isn't converging. */
+    public double getTimeToSettle() {
+        return timeToSettle;
+    }
+
+    public boolean settlesWithin(double seconds) {
+        return timeToSettle <= seconds;
+    }
+}
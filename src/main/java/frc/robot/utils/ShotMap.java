@@ -0,0 +1,218 @@
+package frc.robot.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.wpi.first.networktables.BooleanEntry;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringEntry;
+import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+
+/**
+ * Distance to speaker -> shot solution (pivot angle, wheel speed, heading offset,
+ * note time of flight), linearly interpolated between calibration points and
+ * clamped at the ends.
+ *
+ * Points are loaded from a JSON file in the deploy directory:
+ * <pre>
+ * { "points": [ { "distance": 1.0, "angle": -6, "speed": -80, "headingOffset": -3, "timeOfFlight": 0.12 }, ... ] }
+ * </pre>
+ * The table is stored as sorted primitive arrays, so a lookup is a binary search
+ * with no allocation. While disabled it can be reloaded from the file, or replaced
+ * by JSON pasted into the "shotmap/json" NT entry, by setting "shotmap/reload".
+ */
+public class ShotMap {
+    /** Mutable result holder so lookups in the loop don't allocate. */
+    public static class ShotSolution {
+        public double angle;
+        public double speed;
+        public double headingOffset;
+        public double timeOfFlight;
+    }
+
+    private static final class Table {
+        final double[] distances;
+        final double[] angles;
+        final double[] speeds;
+        final double[] headingOffsets;
+        final double[] timesOfFlight;
+
+        Table(int size) {
+            distances = new double[size];
+            angles = new double[size];
+            speeds = new double[size];
+            headingOffsets = new double[size];
+            timesOfFlight = new double[size];
+        }
+    }
+
+    private final File file;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private volatile Table table;
+
+    private final BooleanEntry reloadEntry;
+    private final StringEntry jsonEntry;
+    private final StringPublisher statusPublisher;
+    private final IntegerPublisher pointsPublisher;
+
+    public ShotMap(String deployFileName) {
+        file = new File(Filesystem.getDeployDirectory(), deployFileName);
+
+        NetworkTable ntTable = NetworkTableInstance.getDefault().getTable("shotmap");
+        reloadEntry = ntTable.getBooleanTopic("reload").getEntry(false);
+        jsonEntry = ntTable.getStringTopic("json").getEntry("");
+        statusPublisher = ntTable.getStringTopic("status").publish();
+        pointsPublisher = ntTable.getIntegerTopic("points").publish();
+        reloadEntry.set(false);
+        jsonEntry.set("");
+
+        table = new Table(0);
+        try {
+            table = parse(mapper.readTree(file));
+            publishStatus("loaded " + file.getName());
+        } catch (IOException | IllegalArgumentException e) {
+            DriverStation.reportError("Could not load shot map " + file + ": " + e.getMessage(), false);
+            publishStatus("load failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Call while disabled. Reloads the table if "shotmap/reload" was set. If
+     * "shotmap/json" holds a table it is used instead of the file and written back
+     * to the file so it survives a reboot.
+     */
+    public void pollReload() {
+        if (!reloadEntry.get()) {
+            return;
+        }
+        reloadEntry.set(false);
+
+        try {
+            String json = jsonEntry.get();
+            if (json.isBlank()) {
+                table = parse(mapper.readTree(file));
+                publishStatus("reloaded " + file.getName());
+            } else {
+                table = parse(mapper.readTree(json));
+                Files.writeString(file.toPath(), json);
+                jsonEntry.set("");
+                publishStatus("loaded from NT and saved");
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // keep flying with the old table
+            publishStatus("reload failed: " + e.getMessage());
+        }
+    }
+
+    public int size() {
+        return table.distances.length;
+    }
+
+    public void get(double distance, ShotSolution out) {
+        Table current = table;
+        int i = lowerIndex(current.distances, distance);
+        double t = fraction(current.distances, i, distance);
+        out.angle = lerp(current.angles, i, t);
+        out.speed = lerp(current.speeds, i, t);
+        out.headingOffset = lerp(current.headingOffsets, i, t);
+        out.timeOfFlight = lerp(current.timesOfFlight, i, t);
+    }
+
+    public double getAngle(double distance) {
+        Table current = table;
+        int i = lowerIndex(current.distances, distance);
+        return lerp(current.angles, i, fraction(current.distances, i, distance));
+    }
+
+    public double getSpeed(double distance) {
+        Table current = table;
+        int i = lowerIndex(current.distances, distance);
+        return lerp(current.speeds, i, fraction(current.distances, i, distance));
+    }
+
+    public double getHeadingOffset(double distance) {
+        Table current = table;
+        int i = lowerIndex(current.distances, distance);
+        return lerp(current.headingOffsets, i, fraction(current.distances, i, distance));
+    }
+
+    /** Seconds from the note leaving the shooter to reaching the speaker. */
+    public double getTimeOfFlight(double distance) {
+        Table current = table;
+        int i = lowerIndex(current.distances, distance);
+        return lerp(current.timesOfFlight, i, fraction(current.distances, i, distance));
+    }
+
+    // Index of the last point at or below the distance, clamped so i + 1 is valid
+    private static int lowerIndex(double[] distances, double distance) {
+        if (distances.length < 2) {
+            return 0;
+        }
+        int i = Arrays.binarySearch(distances, distance);
+        if (i < 0) {
+            i = -i - 2; // insertion point - 1
+        }
+        return Math.max(0, Math.min(i, distances.length - 2));
+    }
+
+    private static double fraction(double[] distances, int i, double distance) {
+        if (distances.length < 2) {
+            return 0;
+        }
+        double t = (distance - distances[i]) / (distances[i + 1] - distances[i]);
+        return Math.max(0, Math.min(t, 1));
+    }
+
+    private static double lerp(double[] values, int i, double t) {
+        if (values.length == 0) {
+            return 0;
+        }
+        if (values.length == 1) {
+            return values[0];
+        }
+        return values[i] + (values[i + 1] - values[i]) * t;
+    }
+
+    private Table parse(JsonNode root) {
+        JsonNode points = root.get("points");
+        if (points == null || !points.isArray() || points.size() == 0) {
+            throw new IllegalArgumentException("expected a non-empty \"points\" array");
+        }
+
+        Table parsed = new Table(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            JsonNode point = points.get(i);
+            parsed.distances[i] = require(point, "distance");
+            parsed.angles[i] = require(point, "angle");
+            parsed.speeds[i] = require(point, "speed");
+            parsed.headingOffsets[i] = point.path("headingOffset").asDouble(0);
+            parsed.timesOfFlight[i] = point.path("timeOfFlight").asDouble(0);
+            if (i > 0 && parsed.distances[i] <= parsed.distances[i - 1]) {
+                throw new IllegalArgumentException("distances must be strictly increasing at point " + i);
+            }
+        }
+        pointsPublisher.set(parsed.distances.length);
+        return parsed;
+    }
+
+    private static double require(JsonNode point, String field) {
+        JsonNode value = point.get(field);
+        if (value == null || !value.isNumber()) {
+            throw new IllegalArgumentException("point is missing \"" + field + "\"");
+        }
+        return value.asDouble();
+    }
+
+    private void publishStatus(String status) {
+        statusPublisher.set(status);
+    }
+}
@@ -0,0 +1,77 @@
+package frc.robot.utils;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.constants.ShooterConstants.Readiness;
+import frc.robot.subsystems.shooter.ShooterRotation;
+import frc.robot.subsystems.shooter.ShooterWheels;
+import frc.robot.subsystems.swerve.CommandSwerveDrivetrain;
+import frc.robot.subsystems.vision_sys.VisionVariables;
+
+/**
+ * True when a note fed now would go where the shot map says: flywheels at
+ * speed, pivot on target and settled, and, when aiming with vision, the robot
+ * pointed at the speaker off a recent frame.
+ *
+ * Each condition is published to "ShotReadiness/..." so a slow shot shows which
+ * one held it up.
+ */
+public class ShotReadiness implements BooleanSupplier {
+    private final ShooterWheels wheels;
+    private final ShooterRotation rotation;
+    private DoubleSupplier headingErrorDegrees = null;
+    private boolean requireVision = false;
+
+    public ShotReadiness(ShooterWheels wheels, ShooterRotation rotation) {
+        this.wheels = wheels;
+        this.rotation = rotation;
+    }
+
+    /** Also require the robot heading to be within tolerance of the shot. */
+    public ShotReadiness withHeadingError(DoubleSupplier headingErrorDegrees) {
+        this.headingErrorDegrees = headingErrorDegrees;
+        return this;
+    }
+
+    /** Also require the speaker tag to have been seen recently. */
+    public ShotReadiness withFreshVision() {
+        requireVision = true;
+        return this;
+    }
+
+    /**
+     * Heading error for a shot lined up with the back camera: the tag's tx against
+     * the offset AimToAprilTag set on the drivetrain's aim PID, which is what the
+     * robot actually turns to. NaN, which never counts as aimed, until the speaker
+     * tag has been seen.
+     */
+    public static double speakerHeadingError() {
+        if (VisionVariables.BackCam.target == null) {
+            return Double.NaN;
+        }
+        return VisionVariables.BackCam.target.getX() - CommandSwerveDrivetrain.pid.getSetpoint();
+    }
+
+    public static double visionAge() {
+        return Timer.getFPGATimestamp() - VisionVariables.ExportedVariables.LastSeenTime;
+    }
+
+    @Override
+    public boolean getAsBoolean() {
+        boolean wheelsReady = wheels.atSpeed();
+        boolean pivotReady = rotation.pidAtSetpoint();
+        boolean headingReady = headingErrorDegrees == null
+                || Math.abs(headingErrorDegrees.getAsDouble()) < Readiness.kHeadingToleranceDegrees;
+        boolean visionReady = !requireVision || visionAge() < Readiness.kMaxVisionAgeSeconds;
+
+        SmartDashboard.putBoolean("ShotReadiness/wheels", wheelsReady);
+        SmartDashboard.putBoolean("ShotReadiness/pivot", pivotReady);
+        SmartDashboard.putBoolean("ShotReadiness/heading", headingReady);
+        SmartDashboard.putBoolean("ShotReadiness/vision", visionReady);
+
+        return wheelsReady && pivotReady && headingReady && visionReady;
+    }
+}
@@ -0,0 +1,45 @@
+package frc.robot.utils;
+
+import com.revrobotics.CANSparkLowLevel.PeriodicFrame;
+import com.revrobotics.CANSparkMax;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.constants.CANConstants;
+
+/**
+ * Sets SparkMax status frame periods to what each subsystem actually reads and
+ * keeps a running total of the frames they put on the bus.
+ *
+ * Only status 0 (applied output, faults, what followers follow), status 1
+ * (velocity, current, temperature, bus voltage) and status 2 (position) are
+ * used on this robot; the analog, alternate encoder and duty cycle frames are
+ * turned down to {@link CANConstants.FramePeriods#kUnused}. The totals are
+ * published under "CAN/..." so a change that adds traffic shows up.
+ */
+public final class SparkMaxFrames {
+    private static double totalFramesPerSecond = 0;
+
+    private SparkMaxFrames() {
+    }
+
+    /** Periods in milliseconds. */
+    public static void configure(String name, CANSparkMax motor, int status0, int status1, int status2) {
+        motor.setPeriodicFramePeriod(PeriodicFrame.kStatus0, status0);
+        motor.setPeriodicFramePeriod(PeriodicFrame.kStatus1, status1);
+        motor.setPeriodicFramePeriod(PeriodicFrame.kStatus2, status2);
+        motor.setPeriodicFramePeriod(PeriodicFrame.kStatus3, CANConstants.FramePeriods.kUnused);
+        motor.setPeriodicFramePeriod(PeriodicFrame.kStatus4, CANConstants.FramePeriods.kUnused);
+        motor.setPeriodicFramePeriod(PeriodicFrame.kStatus5, CANConstants.FramePeriods.kUnused);
+        motor.setPeriodicFramePeriod(PeriodicFrame.kStatus6, CANConstants.FramePeriods.kUnused);
+
+        double framesPerSecond = 1000.0 / status0 + 1000.0 / status1 + 1000.0 / status2
+                + 4 * 1000.0 / CANConstants.FramePeriods.kUnused;
+        totalFramesPerSecond += framesPerSecond;
+
+        SmartDashboard.putNumber("CAN/" + name + " frames per second", framesPerSecond);
+        SmartDashboard.putNumber("CAN/SparkMax frames per second", totalFramesPerSecond);
+        SmartDashboard.putNumber("CAN/SparkMax bus load percent",
+                totalFramesPerSecond * CANConstants.FramePeriods.kBitsPerFrame / CANConstants.FramePeriods.kBusBitsPerSecond
+                        * 100);
+    }
+}
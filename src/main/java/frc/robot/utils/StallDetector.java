@@ -0,0 +1,99 @@
+package frc.robot.utils;
+
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+import frc.robot.constants.StallConstants;
+
+/**
+ * Watches one mechanism for a stall: output and current high while it isn't
+ * moving, for most of a short window. That covers a note jammed in the intake,
+ * an arm or wrist driven into a hard stop, and a note wedged in the shooter.
+ *
+ * Whether each sample looked stalled goes into a fixed ring buffer and the
+ * stalled-sample count is kept as a running total, so {@link #record} is constant time and allocates nothing.
+ * Commands react through {@link #stalled()}.
+ */
+public class StallDetector {
+    private final String name;
+    private final double minOutput;
+    private double minCurrent;
+    private final double maxVelocity;
+    private final int requiredSamples;
+
+    private final boolean[] stallLike;
+    private int head = 0;
+    private int count = 0;
+    private int stallLikeCount = 0;
+    private boolean stalled = false;
+
+    private final Trigger trigger = new Trigger(this::isStalled);
+    private final BooleanLogEntry stalledLog;
+
+    /**
+     * @param window      samples, one per {@link #record} call
+     * @param minOutput   volts, in either direction
+     * @param minCurrent  amps
+     * @param maxVelocity in whatever units the mechanism reports, in either direction
+     */
+    public StallDetector(String name, int window, double minOutput, double minCurrent, double maxVelocity) {
+        this.name = name;
+        this.minOutput = minOutput;
+        this.minCurrent = minCurrent;
+        this.maxVelocity = maxVelocity;
+        requiredSamples = (int) Math.ceil(window * StallConstants.kStallFraction);
+
+        stallLike = new boolean[window];
+
+        stalledLog = new BooleanLogEntry(DataLogManager.getLog(), "/stall/" + name);
+        SmartDashboard.putBoolean("Stall/" + name, false);
+    }
+
+    public void record(double outputVolts, double currentAmps, double measuredVelocity) {
+        if (count == stallLike.length) {
+            if (stallLike[head]) {
+                stallLikeCount--;
+            }
+        } else {
+            count++;
+        }
+
+        boolean sampleStalled = Math.abs(outputVolts) >= minOutput && Math.abs(currentAmps) >= minCurrent
+                && Math.abs(measuredVelocity) <= maxVelocity;
+        stallLike[head] = sampleStalled;
+        if (sampleStalled) {
+            stallLikeCount++;
+        }
+        head = (head + 1) % stallLike.length;
+
+        boolean nowStalled = count == stallLike.length && stallLikeCount >= requiredSamples;
+        if (nowStalled != stalled) {
+            stalled = nowStalled;
+            stalledLog.append(stalled);
+            SmartDashboard.putBoolean("Stall/" + name, stalled);
+            if (stalled) {
+                DriverStation.reportWarning(name + " stalled", false);
+            }
+        }
+    }
+
+    /**
+     * Moves the current threshold, for a mechanism whose current limit changes:
+     * a stall can't draw more than the limit, so a fixed threshold above it
+     * would never trip.
+     */
+    public void setMinCurrent(double amps) {
+        minCurrent = amps;
+    }
+
+    public boolean isStalled() {
+        return stalled;
+    }
+
+    /** True while stalled; bind reactions with onTrue. */
+    public Trigger stalled() {
+        return trigger;
+    }
+}
@@ -0,0 +1,90 @@
+package frc.robot.utils;
+
+import frc.robot.constants.SelfTestConstants;
+
+/**
+ * Records a mechanism's response to a step and measures it: rise time (10% to
+ * 90% of the step), settling time (until it enters the tolerance band for
+ * good), overshoot as a percentage of the step, steady-state error averaged over
+ * the end of the recording, and peak current.
+ *
+ * Samples go into preallocated arrays sized for the recording, one per
+ * {@link #record} call.
+ */
+public class StepResponse {
+    /** NaN for a time the response never reached. */
+    public static class Result {
+        public double riseTime;
+        public double settlingTime;
+        public double overshoot; // percent of the step
+        public double steadyStateError;
+        public double peakCurrent;
+    }
+
+    private final double[] times;
+    private final double[] positions;
+    private final double[] currents;
+    private int count = 0;
+
+    public StepResponse(int capacity) {
+        times = new double[capacity];
+        positions = new double[capacity];
+        currents = new double[capacity];
+    }
+
+    public void reset() {
+        count = 0;
+    }
+
+    /** @param time seconds since the step */
+    public void record(double time, double position, double current) {
+        if (count == times.length) {
+            return;
+        }
+        times[count] = time;
+        positions[count] = position;
+        currents[count] = current;
+        count++;
+    }
+
+    public Result analyze(double start, double target, double tolerance) {
+        Result result = new Result();
+        result.riseTime = Double.NaN;
+        result.settlingTime = Double.NaN;
+        if (count == 0) {
+            result.steadyStateError = Double.NaN;
+            return result;
+        }
+
+        double step = target - start;
+        double riseStart = Double.NaN;
+        double peak = 0;
+        int lastOutside = -1;
+        for (int i = 0; i < count; i++) {
+            double fraction = (positions[i] - start) / step;
+            if (Double.isNaN(riseStart) && fraction >= SelfTestConstants.kRiseLow) {
+                riseStart = times[i];
+            }
+            if (Double.isNaN(result.riseTime) && fraction >= SelfTestConstants.kRiseHigh) {
+                result.riseTime = times[i] - riseStart;
+            }
+            peak = Math.max(peak, fraction);
+            if (Math.abs(target - positions[i]) > tolerance) {
+                lastOutside = i;
+            }
+            result.peakCurrent = Math.max(result.peakCurrent, Math.abs(currents[i]));
+        }
+        result.overshoot = Math.max(0, peak - 1) * 100;
+        if (lastOutside < count - 1) {
+            result.settlingTime = times[lastOutside + 1];
+        }
+
+        int first = (int) (count * (1 - SelfTestConstants.kSteadyStateFraction));
+        double errorSum = 0;
+        for (int i = first; i < count; i++) {
+            errorSum += Math.abs(target - positions[i]);
+        }
+        result.steadyStateError = errorSum / (count - first);
+        return result;
+    }
+}
@@ -0,0 +1,201 @@
+package frc.robot.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.math.trajectory.TrapezoidProfile.State;
+import frc.robot.constants.SuperstructureConstants;
+
+/**
+ * Plans arm, shooter and wrist moves that run all three joints at once without
+ * entering the keep-out boxes in {@link SuperstructureConstants}.
+ *
+ * A path is a list of straight segments in joint space. Each segment is one
+ * trapezoid profile on a path parameter {@code s} from 0 to 1, with each joint
+ * at {@code start + (end - start) * s}. The velocity and acceleration limits on
+ * {@code s} are the tightest of the joints' limits divided by how far each one
+ * moves, so every joint starts and stops together and the slowest joint sets
+ * the pace. Because the joints stay in proportion the motion really is the
+ * straight segment, which is what makes checking it for collisions meaningful.
+ *
+ * Candidate paths are the direct move, each joint moved first or last, and a
+ * detour through the stow pose; the fastest one that stays clear wins.
+ */
+public class SuperstructurePlanner {
+    public static class Plan {
+        private final List<double[]> waypoints;
+        private final TrapezoidProfile[] profiles;
+        private final double[] segmentTimes;
+        private final double totalTime;
+
+        private static final State kStart = new State(0, 0);
+        private static final State kEnd = new State(1, 0);
+
+        private Plan(List<double[]> waypoints) {
+            this.waypoints = waypoints;
+            profiles = new TrapezoidProfile[waypoints.size() - 1];
+            segmentTimes = new double[profiles.length];
+
+            double total = 0;
+            for (int i = 0; i < profiles.length; i++) {
+                profiles[i] = segmentProfile(waypoints.get(i), waypoints.get(i + 1));
+                profiles[i].calculate(0, kStart, kEnd);
+                segmentTimes[i] = profiles[i].totalTime();
+                total += segmentTimes[i];
+            }
+            totalTime = total;
+        }
+
+        public double getTotalTime() {
+            return totalTime;
+        }
+
+        public double[] getGoal() {
+            return waypoints.get(waypoints.size() - 1);
+        }
+
+        public int getSegmentCount() {
+            return profiles.length;
+        }
+
+        /**
+         * Joint setpoints {@code t} seconds into the plan, written into
+         * {@code position}, and each joint's planned velocity in units per second
+         * into {@code velocity}.
+         */
+        public void sample(double t, double[] position, double[] velocity) {
+            for (int i = 0; i < profiles.length; i++) {
+                if (t <= segmentTimes[i] || i == profiles.length - 1) {
+                    State state = profiles[i].calculate(t, kStart, kEnd);
+                    double[] from = waypoints.get(i);
+                    double[] to = waypoints.get(i + 1);
+                    interpolate(from, to, Math.min(state.position, 1), position);
+                    for (int joint = 0; joint < velocity.length; joint++) {
+                        velocity[joint] = state.position < 1 ? (to[joint] - from[joint]) * state.velocity : 0;
+                    }
+                    return;
+                }
+                t -= segmentTimes[i];
+            }
+            System.arraycopy(getGoal(), 0, position, 0, position.length);
+            Arrays.fill(velocity, 0);
+        }
+    }
+
+    /**
+     * Fastest collision-free plan from {@code start} to {@code goal}, or empty if
+     * none of the candidates is clear. The goal is clamped to the joint limits.
+     */
+    public Optional<Plan> plan(double[] start, double[] goal) {
+        double[] end = clampToLimits(goal);
+        if (!isSafe(end)) {
+            return Optional.empty();
+        }
+
+        List<List<double[]>> candidates = new ArrayList<>();
+        candidates.add(List.of(start, end));
+        for (int joint = 0; joint < SuperstructureConstants.kJointCount; joint++) {
+            double[] first = start.clone();
+            first[joint] = end[joint];
+            candidates.add(List.of(start, first, end));
+
+            double[] last = end.clone();
+            last[joint] = start[joint];
+            candidates.add(List.of(start, last, end));
+        }
+        candidates.add(List.of(start, SuperstructureConstants.kStowPose, end));
+
+        Plan best = null;
+        for (List<double[]> waypoints : candidates) {
+            if (!isPathSafe(waypoints)) {
+                continue;
+            }
+            Plan candidate = new Plan(waypoints);
+            if (best == null || candidate.getTotalTime() < best.getTotalTime()) {
+                best = candidate;
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    public static boolean isSafe(double[] pose) {
+        for (double[] box : SuperstructureConstants.kKeepOut) {
+            boolean inside = true;
+            for (int joint = 0; joint < SuperstructureConstants.kJointCount && inside; joint++) {
+                inside = pose[joint] > box[2 * joint] && pose[joint] < box[2 * joint + 1];
+            }
+            if (inside) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Walks the path in small steps. A start that is already inside a keep-out box
+     * (the joints were left there by hand) is allowed to move out of it; once clear
+     * the path has to stay clear.
+     */
+    private static boolean isPathSafe(List<double[]> waypoints) {
+        double[] pose = new double[SuperstructureConstants.kJointCount];
+        boolean clear = isSafe(waypoints.get(0));
+        for (int i = 0; i < waypoints.size() - 1; i++) {
+            double[] from = waypoints.get(i);
+            double[] to = waypoints.get(i + 1);
+            int steps = (int) Math.ceil(maxDelta(from, to) / SuperstructureConstants.kPathCheckStep);
+            for (int step = 1; step <= steps; step++) {
+                interpolate(from, to, (double) step / steps, pose);
+                boolean safe = isSafe(pose);
+                if (clear && !safe) {
+                    return false;
+                }
+                clear |= safe;
+            }
+        }
+        return clear;
+    }
+
+    private static TrapezoidProfile segmentProfile(double[] from, double[] to) {
+        double maxVelocity = Double.POSITIVE_INFINITY;
+        double maxAcceleration = Double.POSITIVE_INFINITY;
+        for (int joint = 0; joint < SuperstructureConstants.kJointCount; joint++) {
+            double distance = Math.abs(to[joint] - from[joint]);
+            if (distance > 1e-6) {
+                maxVelocity = Math.min(maxVelocity, SuperstructureConstants.kMaxVelocity[joint] / distance);
+                maxAcceleration = Math.min(maxAcceleration, SuperstructureConstants.kMaxAcceleration[joint] / distance);
+            }
+        }
+        if (Double.isInfinite(maxVelocity)) {
+            // nothing moves, finish straight away
+            maxVelocity = 1e6;
+            maxAcceleration = 1e6;
+        }
+        return new TrapezoidProfile(new TrapezoidProfile.Constraints(maxVelocity, maxAcceleration));
+    }
+
+    private static double[] clampToLimits(double[] pose) {
+        double[] clamped = new double[SuperstructureConstants.kJointCount];
+        for (int joint = 0; joint < SuperstructureConstants.kJointCount; joint++) {
+            clamped[joint] = Math.max(SuperstructureConstants.kMinAngle[joint],
+                    Math.min(pose[joint], SuperstructureConstants.kMaxAngle[joint]));
+        }
+        return clamped;
+    }
+
+    private static double maxDelta(double[] from, double[] to) {
+        double max = 0;
+        for (int joint = 0; joint < SuperstructureConstants.kJointCount; joint++) {
+            max = Math.max(max, Math.abs(to[joint] - from[joint]));
+        }
+        return max;
+    }
+
+    private static void interpolate(double[] from, double[] to, double s, double[] out) {
+        for (int joint = 0; joint < SuperstructureConstants.kJointCount; joint++) {
+            out[joint] = from[joint] + (to[joint] - from[joint]) * s;
+        }
+    }
+}
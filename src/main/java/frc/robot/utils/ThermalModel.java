@@ -0,0 +1,77 @@
+package frc.robot.utils;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.util.datalog.DoubleLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.constants.ThermalConstants;
+
+/**
+ * Estimates a motor's winding temperature. I^2 R heating from the measured current
+ * goes into a first-order model with a loss to ambient air. The estimate is
+ * pulled toward the motor's own temperature sensor, which is accurate but
+ * reacts slowly, with a time constant of
+ * {@link ThermalConstants#kMeasurementTimeConstant} that doesn't depend on the
+ * loop rate. The model catches a burst of current well before the sensor shows
+ * it, and the sensor stops the model from drifting over a match.
+ *
+ * Call {@link #update} once per loop. The estimate, and the headroom left
+ * before the last derating stage ends, are published under "Thermal/...".
+ */
+public class ThermalModel {
+    private final String name;
+    private final double resistance;
+    private final DoubleLogEntry temperatureLog;
+
+    private double temperature = ThermalConstants.kAmbient;
+    private double lastTimestamp = Double.NaN;
+    private boolean seeded = false;
+
+    /** @param resistance winding resistance in ohms */
+    public ThermalModel(String name, double resistance) {
+        this.name = name;
+        this.resistance = resistance;
+        temperatureLog = new DoubleLogEntry(DataLogManager.getLog(), "/thermal/" + name);
+    }
+
+    public void update(double currentAmps, double measuredTemperature) {
+        double now = Timer.getFPGATimestamp();
+        if (!seeded) {
+            temperature = Math.max(measuredTemperature, ThermalConstants.kAmbient);
+            seeded = true;
+        } else {
+            double dt = now - lastTimestamp;
+            double heating = currentAmps * currentAmps * resistance;
+            double cooling = (temperature - ThermalConstants.kAmbient) / ThermalConstants.kThermalResistance;
+            temperature += (heating - cooling) / ThermalConstants.kThermalCapacitance * dt;
+            temperature += dt / (ThermalConstants.kMeasurementTimeConstant + dt) * (measuredTemperature - temperature);
+        }
+        lastTimestamp = now;
+
+        temperatureLog.append(temperature);
+        SmartDashboard.putNumber("Thermal/" + name + " temperature", temperature);
+    }
+
+    /** Degrees C. */
+    public double getTemperature() {
+        return temperature;
+    }
+
+    /** Publishes how far this motor is from the end of a derating stage, 1 cool to 0 fully derated. */
+    public void publishHeadroom(double end) {
+        double headroom = MathUtil.clamp((end - temperature) / (end - ThermalConstants.kAmbient), 0, 1);
+        SmartDashboard.putNumber("Thermal/" + name + " headroom", headroom);
+    }
+
+    /**
+     * Limit scale for a derating stage at {@code temperature}: 1 up to
+     * {@code start}, {@code minScale} from {@code end} on, linear in between and
+     * rounded down to {@link ThermalConstants#kDerateSteps} steps.
+     */
+    public static double derate(double temperature, double start, double end, double minScale) {
+        double fraction = MathUtil.clamp((temperature - start) / (end - start), 0, 1);
+        double scale = 1 - fraction * (1 - minScale);
+        return Math.max(minScale, Math.floor(scale * ThermalConstants.kDerateSteps) / ThermalConstants.kDerateSteps);
+    }
+}